@@ -1,14 +1,25 @@
 package org.lukeeirl.blockShuffle;
 
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.lukeeirl.blockShuffle.commands.*;
+import org.lukeeirl.blockShuffle.events.ChunkListener;
 import org.lukeeirl.blockShuffle.events.PlayerListener;
+import org.lukeeirl.blockShuffle.game.ChunkMaterialIndex;
+import org.lukeeirl.blockShuffle.game.CompletionDetector;
+import org.lukeeirl.blockShuffle.game.CompletionSampler;
+import org.lukeeirl.blockShuffle.game.ContactResolver;
 import org.lukeeirl.blockShuffle.game.GameManager;
 import org.lukeeirl.blockShuffle.game.PlayerTracker;
+import org.lukeeirl.blockShuffle.game.TargetLocator;
 import org.lukeeirl.blockShuffle.ui.SettingsGUI;
 import org.lukeeirl.blockShuffle.util.CreeperManager;
+import org.lukeeirl.blockShuffle.util.GameHistoryStore;
+import org.lukeeirl.blockShuffle.util.MaterialPool;
+import org.lukeeirl.blockShuffle.util.NameIndex;
 import org.lukeeirl.blockShuffle.util.SkipManager;
+import org.lukeeirl.blockShuffle.util.StatsExporter;
 import org.lukeeirl.blockShuffle.util.StatsManager;
 
 import java.io.File;
@@ -19,6 +30,11 @@ public final class BlockShuffle extends JavaPlugin {
     private File settingsFile;
     private File skipsFile;
     private File creeperFile;
+    private StatsManager statsManager;
+    private GameHistoryStore historyStore;
+    private NameIndex nameIndex;
+    private SkipManager skipManager;
+    private GameManager gameManager;
 
     public static Logger logger;
 
@@ -38,28 +54,60 @@ public final class BlockShuffle extends JavaPlugin {
         YamlConfiguration creeperConfig = YamlConfiguration.loadConfiguration(this.creeperFile);
         PlayerTracker playerTracker = new PlayerTracker();
         SettingsGUI settingsGUI = new SettingsGUI(this, this.settingsFile, settings);
-        StatsManager statsManager = new StatsManager(this);
-        SkipManager skipManager = new SkipManager(skipsFile, skipsConfig, statsManager);
+        this.statsManager = new StatsManager(this, settings.getString("statsBackend", "yaml"), settings.getInt("statsCacheSize", 1000));
+        this.skipManager = new SkipManager(skipsFile, skipsConfig, statsManager);
         CreeperManager creeperManager = new CreeperManager(creeperFile, creeperConfig);
-        GameManager gameManager = new GameManager(playerTracker, this, settings, settingsGUI, skipManager, statsManager, creeperManager);
-        PlayerListener playerListener = new PlayerListener(this, playerTracker, gameManager);
-        Objects.requireNonNull(this.getCommand("blockshuffle")).setExecutor(new BlockShuffleCommand(playerTracker, gameManager, settingsGUI));
+        MaterialPool materialPool = new MaterialPool(this.settingsFile, settings);
+        ChunkMaterialIndex chunkMaterialIndex = new ChunkMaterialIndex(materialPool);
+        this.historyStore = new GameHistoryStore(this);
+        this.nameIndex = new NameIndex(this);
+        this.gameManager = new GameManager(playerTracker, this, settings, settingsGUI, skipManager, statsManager, creeperManager, materialPool, chunkMaterialIndex, historyStore);
+        boolean sampledDetection = settings.getString("detectionMode", "event").equalsIgnoreCase("sampled");
+        ContactResolver contactResolver = new ContactResolver(materialPool.asList());
+        materialPool.onReload(pool -> contactResolver.rebuild(pool.asList()));
+        CompletionDetector completionDetector = new CompletionDetector(playerTracker, gameManager, contactResolver, sampledDetection);
+        if (sampledDetection) {
+            new CompletionSampler(this, playerTracker, completionDetector, settings.getInt("sampleIntervalTicks", 5)).start();
+        }
+        TargetLocator targetLocator = new TargetLocator(this, playerTracker, chunkMaterialIndex);
+        PlayerListener playerListener = new PlayerListener(this, playerTracker, gameManager, completionDetector, targetLocator, statsManager, nameIndex);
+        Objects.requireNonNull(this.getCommand("blockshuffle")).setExecutor(new BlockShuffleCommand(playerTracker, gameManager, settingsGUI, completionDetector, materialPool, targetLocator, historyStore, nameIndex, new StatsExporter(this, statsManager, skipManager)));
         Objects.requireNonNull(this.getCommand("skipblock")).setExecutor(new SkipBlockCommand(gameManager, playerTracker));
         Objects.requireNonNull(this.getCommand("lobby")).setExecutor(new LobbyCommand(gameManager));
         Objects.requireNonNull(this.getCommand("testmsg")).setExecutor(new TestMessageCommand());
-        Objects.requireNonNull(this.getCommand("giveskips")).setExecutor(new GiveSkipsCommand(skipManager));
-        Objects.requireNonNull(this.getCommand("stats")).setExecutor(new StatsCommand(statsManager, skipManager));
+        Objects.requireNonNull(this.getCommand("giveskips")).setExecutor(new GiveSkipsCommand(skipManager, nameIndex));
+        Objects.requireNonNull(this.getCommand("stats")).setExecutor(new StatsCommand(statsManager, skipManager, nameIndex));
 
         CreeperCommand creeperCommand = new CreeperCommand(creeperManager);
         Objects.requireNonNull(this.getCommand("creeper")).setExecutor(creeperCommand);
         Objects.requireNonNull(this.getCommand("creeper")).setTabCompleter(creeperCommand);
 
         this.getServer().getPluginManager().registerEvents(playerListener, this);
+        // Covers /reload, where players are already online and won't trigger a join
+        statsManager.prefetch(this.getServer().getOnlinePlayers().stream().map(Player::getUniqueId).toList());
+        for (Player player : this.getServer().getOnlinePlayers()) {
+            nameIndex.record(player.getUniqueId(), player.getName());
+        }
+        this.getServer().getPluginManager().registerEvents(new ChunkListener(chunkMaterialIndex), this);
     }
 
     @Override
     public void onDisable() {
-        // Plugin shutdown logic
+        if (this.gameManager != null) {
+            this.gameManager.shutdown();
+        }
+        if (this.statsManager != null) {
+            this.statsManager.shutdown();
+        }
+        if (this.skipManager != null) {
+            this.skipManager.shutdown();
+        }
+        if (this.nameIndex != null) {
+            this.nameIndex.shutdown();
+        }
+        if (this.historyStore != null) {
+            this.historyStore.close();
+        }
     }
 
     private void createSettingsFile() {
@@ -11,32 +11,63 @@ import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 import org.lukeeirl.blockShuffle.BlockShuffle;
+import org.lukeeirl.blockShuffle.game.CompletionDetector;
 import org.lukeeirl.blockShuffle.game.GameManager;
 import org.lukeeirl.blockShuffle.game.PlayerTracker;
+import org.lukeeirl.blockShuffle.game.TargetLocator;
+import org.lukeeirl.blockShuffle.game.WorldService;
 import org.lukeeirl.blockShuffle.ui.SettingsGUI;
-
+import org.lukeeirl.blockShuffle.util.GameHistoryStore;
+import org.lukeeirl.blockShuffle.util.GameRecord;
+import org.lukeeirl.blockShuffle.util.MaterialPool;
+import org.lukeeirl.blockShuffle.util.NameIndex;
+import org.lukeeirl.blockShuffle.util.StatsExporter;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.UUID;
 
+import static org.lukeeirl.blockShuffle.util.PlayerUtils.formatMaterialName;
 import static org.lukeeirl.blockShuffle.util.PlayerUtils.formatStatusMessage;
 import static org.lukeeirl.blockShuffle.util.PlayerUtils.prefixedMessage;
 
 public class BlockShuffleCommand implements CommandExecutor, TabCompleter {
+    private static final int HISTORY_PAGE_SIZE = 5;
 
     private final PlayerTracker playerTracker;
     private final GameManager gameManager;
     private final SettingsGUI settingsGUI;
+    private final CompletionDetector completionDetector;
+    private final MaterialPool materialPool;
+    private final TargetLocator targetLocator;
+    private final GameHistoryStore historyStore;
+    private final NameIndex names;
+    private final StatsExporter statsExporter;
 
     public BlockShuffleCommand(
             PlayerTracker playerTracker,
             GameManager gameManager,
-            SettingsGUI settingsGUI
+            SettingsGUI settingsGUI,
+            CompletionDetector completionDetector,
+            MaterialPool materialPool,
+            TargetLocator targetLocator,
+            GameHistoryStore historyStore,
+            NameIndex names,
+            StatsExporter statsExporter
     ) {
         this.playerTracker = playerTracker;
         this.gameManager = gameManager;
         this.settingsGUI = settingsGUI;
+        this.completionDetector = completionDetector;
+        this.materialPool = materialPool;
+        this.targetLocator = targetLocator;
+        this.historyStore = historyStore;
+        this.names = names;
+        this.statsExporter = statsExporter;
     }
 
     @Override
@@ -98,7 +129,7 @@ public class BlockShuffleCommand implements CommandExecutor, TabCompleter {
                 break;
 
             case "start":
-                if (gameManager.isInProgress()) {
+                if (gameManager.isInProgress() || gameManager.isPreparing()) {
                     sender.sendMessage(Component.text("A game is already in progress.", NamedTextColor.RED));
                     return true;
                 }
@@ -131,7 +162,7 @@ public class BlockShuffleCommand implements CommandExecutor, TabCompleter {
                     return true;
                 }
 
-                if (!gameManager.isInProgress()) {
+                if (!gameManager.isInProgress() && !gameManager.isPreparing()) {
                     sender.sendMessage(Component.text("No game is currently running.", NamedTextColor.RED));
                     return true;
                 }
@@ -184,6 +215,153 @@ public class BlockShuffleCommand implements CommandExecutor, TabCompleter {
                 }
                 break;
 
+            case "hint":
+                if (!(sender instanceof Player player)) {
+                    sender.sendMessage(Component.text("This command can only be used by players.", NamedTextColor.RED));
+                    return true;
+                }
+
+                if (!sender.hasPermission("blockshuffle.command.hint")) {
+                    sender.sendMessage(Component.text("You do not have permission to use hints.", NamedTextColor.RED));
+                    return true;
+                }
+
+                if (!gameManager.isInProgress() || !playerTracker.getUserMaterialMap().containsKey(player.getUniqueId())) {
+                    player.sendMessage(prefixedMessage(
+                            Component.text("You don't have a block to find right now.", NamedTextColor.RED)));
+                    return true;
+                }
+
+                boolean searching = targetLocator.locate(player, hint -> {
+                    if (!player.isOnline()) return;
+                    if (hint == null) {
+                        player.sendMessage(prefixedMessage(Component.text(
+                                "Nobody has come across " + formatMaterialName(playerTracker.getUserMaterialMap().get(player.getUniqueId())) + " yet. Keep exploring!", NamedTextColor.YELLOW)));
+                        return;
+                    }
+
+                    int distance = (int) Math.sqrt(hint.location().distanceSquared(player.getLocation()));
+                    player.setCompassTarget(hint.location());
+                    player.sendMessage(prefixedMessage(Component.text("Nearest " + formatMaterialName(hint.target()) + " seen at ", NamedTextColor.GREEN)
+                            .append(Component.text(hint.x() + ", " + hint.y() + ", " + hint.z(), NamedTextColor.AQUA))
+                            .append(Component.text(" (" + distance + " blocks away). Your compass now points to it.", NamedTextColor.GREEN))));
+                });
+                if (!searching) {
+                    player.sendMessage(prefixedMessage(Component.text("Still looking, hang on...", NamedTextColor.YELLOW)));
+                }
+                break;
+
+            case "history":
+                if (!sender.hasPermission("blockshuffle.command.history")) {
+                    sender.sendMessage(Component.text("You do not have permission to view game history.", NamedTextColor.RED));
+                    return true;
+                }
+
+                sendHistory(sender, args);
+                break;
+
+            case "export":
+                if (!sender.hasPermission("blockshuffle.admin.export")) {
+                    sender.sendMessage(Component.text("You do not have permission to export data.", NamedTextColor.RED));
+                    return true;
+                }
+
+                if (args.length < 3 || !args[1].equalsIgnoreCase("stats")) {
+                    sender.sendMessage(Component.text("Usage: /blockshuffle export stats <file.csv|file.ndjson>", NamedTextColor.YELLOW));
+                    return true;
+                }
+
+                if (!StatsExporter.isValidFileName(args[2])) {
+                    sender.sendMessage(Component.text("File name must end in .csv, .ndjson or .jsonl and use only letters, numbers, '.', '-' and '_'.", NamedTextColor.RED));
+                    return true;
+                }
+
+                boolean started = statsExporter.export(args[2], (result, error) -> {
+                    if (error != null) {
+                        sender.sendMessage(Component.text("Export failed: " + error.getMessage(), NamedTextColor.RED));
+                        return;
+                    }
+                    sender.sendMessage(prefixedMessage(Component.text(String.format("Exported %d players to exports/%s (%.1f KB) in %dms, %d rows/s",
+                            result.rows(), result.file().getName(), result.bytes() / 1024.0, result.millis(), result.rowsPerSecond()), NamedTextColor.GREEN)));
+                });
+                if (!started) {
+                    sender.sendMessage(Component.text("An export is already running.", NamedTextColor.RED));
+                    return true;
+                }
+                sender.sendMessage(Component.text("Exporting stats in the background...", NamedTextColor.YELLOW));
+                break;
+
+            case "pool":
+                if (!sender.hasPermission("blockshuffle.admin.pool")) {
+                    sender.sendMessage(Component.text("You do not have permission to view the world pool.", NamedTextColor.RED));
+                    return true;
+                }
+
+                WorldService.PoolStatus pool = gameManager.getWorldPoolStatus();
+                sender.sendMessage(prefixedMessage(Component.text(
+                        String.format("World pool: %d/%d ready | Last generation: %dms | Leased: %d | Generated on demand: %d | Retired: %d | Templates: %d (%d cloned)",
+                                pool.ready(), pool.capacity(), pool.lastGenerationMillis(), pool.leasedFromPool(),
+                                pool.generatedOnDemand(), pool.retired(), pool.templates(), pool.clonedFromTemplate()), NamedTextColor.AQUA)));
+                break;
+
+            case "templates":
+                if (!sender.hasPermission("blockshuffle.admin.templates")) {
+                    sender.sendMessage(Component.text("You do not have permission to manage world templates.", NamedTextColor.RED));
+                    return true;
+                }
+
+                if (args.length < 3 || !args[1].equalsIgnoreCase("build") || !isNumber(args[2]) || Integer.parseInt(args[2]) < 1) {
+                    sender.sendMessage(Component.text("Usage: /blockshuffle templates build <count>", NamedTextColor.YELLOW));
+                    return true;
+                }
+
+                if (gameManager.isInProgress() || gameManager.isPreparing()) {
+                    sender.sendMessage(Component.text("Templates can only be built while no game is running.", NamedTextColor.RED));
+                    return true;
+                }
+
+                int templateCount = Integer.parseInt(args[2]);
+                boolean building = gameManager.buildWorldTemplates(templateCount,
+                        built -> sender.sendMessage(Component.text("Built template " + built + "/" + templateCount, NamedTextColor.GRAY)),
+                        built -> sender.sendMessage(prefixedMessage(Component.text("Built " + built + " of " + templateCount + " world templates"
+                                + (built < templateCount ? " (stopped early, see console)" : ""), built < templateCount ? NamedTextColor.YELLOW : NamedTextColor.GREEN))));
+                if (!building) {
+                    sender.sendMessage(Component.text("Templates are already being built.", NamedTextColor.RED));
+                    return true;
+                }
+                sender.sendMessage(Component.text("Building " + templateCount + " world templates; the server will stall briefly for each one.", NamedTextColor.YELLOW));
+                break;
+
+            case "reloadmaterials":
+                if (!sender.hasPermission("blockshuffle.admin.settings")) {
+                    sender.sendMessage(Component.text("You do not have permission to reload materials.", NamedTextColor.RED));
+                    return true;
+                }
+
+                int poolSize = materialPool.reload();
+                sender.sendMessage(Component.text("Reloaded " + poolSize + " blocks from settings.yml (invalid entries are listed in the console).", NamedTextColor.GREEN));
+                break;
+
+            case "detector":
+                if (!sender.hasPermission("blockshuffle.admin.detector")) {
+                    sender.sendMessage(Component.text("You do not have permission to view detector stats.", NamedTextColor.RED));
+                    return true;
+                }
+
+                long probes = completionDetector.getProbesPerformed();
+                long skipped = completionDetector.getEventsSkipped();
+                long total = probes + skipped;
+                double skipRate = total == 0 ? 0.0 : (skipped * 100.0) / total;
+                sender.sendMessage(prefixedMessage(Component.text(
+                        String.format("Mode: %s | Probes: %d | Skipped: %d (%.1f%%)",
+                                completionDetector.isSampled() ? "sampled" : "event", probes, skipped, skipRate), NamedTextColor.AQUA)));
+
+                if (args.length > 1 && args[1].equalsIgnoreCase("reset")) {
+                    completionDetector.resetCounters();
+                    sender.sendMessage(Component.text("Detector counters reset.", NamedTextColor.GREEN));
+                }
+                break;
+
             default:
                 sender.sendMessage(Component.text("Unknown subcommand. Try: /blockshuffle <ready|start|stop|spectate|readyall>", NamedTextColor.YELLOW));
                 break;
@@ -200,13 +378,102 @@ public class BlockShuffleCommand implements CommandExecutor, TabCompleter {
             String[] args
     ) {
         if (args.length == 1) {
-            List<String> subcommands = Arrays.asList("ready", "settings", "start", "stop", "spectate", "readyall", "broadcast", "newblock");
+            List<String> subcommands = Arrays.asList("ready", "settings", "start", "stop", "spectate", "readyall", "broadcast", "newblock", "hint", "history", "export", "pool", "templates", "detector", "reloadmaterials");
 
             return subcommands.stream()
                     .filter(cmd -> cmd.startsWith(args[0].toLowerCase()))
                     .toList();
         }
 
+        if (args.length == 2 && args[0].equalsIgnoreCase("export")) {
+            return "stats".startsWith(args[1].toLowerCase()) ? List.of("stats") : Collections.emptyList();
+        }
+
+        if (args.length == 2 && args[0].equalsIgnoreCase("templates")) {
+            return "build".startsWith(args[1].toLowerCase()) ? List.of("build") : Collections.emptyList();
+        }
+
+        if (args.length == 2 && args[0].equalsIgnoreCase("history")) {
+            return names.complete(args[1], 50);
+        }
+
         return Collections.emptyList();
     }
+
+    /**
+     * /blockshuffle history [player] [page]. A lone number is taken as a page of every game.
+     */
+    private void sendHistory(CommandSender sender, String[] args) {
+        UUID filter = null;
+        String filterName = null;
+        int page = 1;
+        int next = 1;
+
+        if (args.length > next && !isNumber(args[next])) {
+            filter = names.lookup(args[next]);
+            if (filter == null) {
+                sender.sendMessage(Component.text("No player named " + args[next] + " has played here.", NamedTextColor.RED));
+                return;
+            }
+            filterName = names.name(filter);
+            next++;
+        }
+        if (args.length > next) {
+            if (!isNumber(args[next])) {
+                sender.sendMessage(Component.text("Usage: /blockshuffle history [player] [page]", NamedTextColor.YELLOW));
+                return;
+            }
+            page = Math.max(1, Integer.parseInt(args[next]));
+        }
+
+        String heading = filterName == null ? "Recent games" : filterName + "'s games";
+        historyStore.page(filter, page, HISTORY_PAGE_SIZE, result -> {
+            if (result == null) {
+                sender.sendMessage(Component.text("Game history is unavailable right now, see the console.", NamedTextColor.RED));
+                return;
+            }
+            if (result.games().isEmpty()) {
+                sender.sendMessage(prefixedMessage(Component.text(result.page() == 1 ? "No games on record yet." : "No games on that page.", NamedTextColor.YELLOW)));
+                return;
+            }
+
+            sender.sendMessage(prefixedMessage(Component.text(heading + " (page " + result.page() + ")", NamedTextColor.GOLD)));
+            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+            for (GameRecord game : result.games()) {
+                sender.sendMessage(Component.text(dateFormat.format(new Date(game.startedAt())) + " ", NamedTextColor.GRAY)
+                        .append(Component.text(game.mode(), NamedTextColor.AQUA))
+                        .append(Component.text(" | " + game.participants().size() + " players | " + game.rounds() + " rounds | "
+                                + formatDuration(game.durationMillis()) + " | won by ", NamedTextColor.GRAY))
+                        .append(Component.text(winnerNames(game), NamedTextColor.GREEN)));
+            }
+            if (result.hasMore()) {
+                String command = "/blockshuffle history " + (filterName == null ? "" : filterName + " ") + (result.page() + 1);
+                sender.sendMessage(Component.text("More: " + command, NamedTextColor.GRAY));
+            }
+        });
+    }
+
+    private String winnerNames(GameRecord game) {
+        if (game.winners().isEmpty()) return "nobody";
+        List<String> winners = new ArrayList<>(game.winners().size());
+        for (UUID winner : game.winners()) {
+            String name = names.name(winner);
+            winners.add(name != null ? name : winner.toString().substring(0, 8));
+        }
+        return String.join(", ", winners);
+    }
+
+    private static String formatDuration(long millis) {
+        long totalSeconds = millis / 1000;
+        return String.format("%d:%02d", totalSeconds / 60, totalSeconds % 60);
+    }
+
+    private static boolean isNumber(String arg) {
+        try {
+            Integer.parseInt(arg);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
 }
@@ -2,23 +2,27 @@ package org.lukeeirl.blockShuffle.commands;
 
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
-import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
+import org.lukeeirl.blockShuffle.util.NameIndex;
 import org.lukeeirl.blockShuffle.util.SkipManager;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
 
 public class GiveSkipsCommand implements CommandExecutor, TabCompleter {
+    private static final int MAX_COMPLETIONS = 50;
     private final SkipManager skipManager;
+    private final NameIndex names;
 
-    public GiveSkipsCommand(SkipManager skipManager) {
+    public GiveSkipsCommand(SkipManager skipManager, NameIndex names) {
         this.skipManager = skipManager;
+        this.names = names;
     }
 
     @Override
@@ -34,7 +38,8 @@ public class GiveSkipsCommand implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        Player target = Bukkit.getPlayer(args[0]);
+        // Works for offline players too; skips are keyed by UUID
+        UUID target = names.lookup(args[0]);
         if (target == null) {
             sender.sendMessage(Component.text("Player not found.", NamedTextColor.RED));
             return true;
@@ -48,8 +53,8 @@ public class GiveSkipsCommand implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        skipManager.addSkips(target.getUniqueId(), amount);
-        sender.sendMessage(Component.text("Added " + amount + " skips to " + target.getName(), NamedTextColor.GREEN));
+        skipManager.addSkips(target, amount);
+        sender.sendMessage(Component.text("Added " + amount + " skips to " + names.name(target), NamedTextColor.GREEN));
         return true;
     }
 
@@ -57,7 +62,7 @@ public class GiveSkipsCommand implements CommandExecutor, TabCompleter {
     public List<String> onTabComplete(@NotNull CommandSender sender, @NotNull Command command,
                                       @NotNull String alias, String[] args) {
         if (args.length == 1) {
-            return Bukkit.getOnlinePlayers().stream().map(Player::getName).toList();
+            return names.complete(args[0], MAX_COMPLETIONS);
         }
         return Collections.emptyList();
     }
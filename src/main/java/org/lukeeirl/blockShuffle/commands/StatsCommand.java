@@ -2,18 +2,20 @@ package org.lukeeirl.blockShuffle.commands;
 
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.minimessage.MiniMessage;
-import org.bukkit.Bukkit;
-import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
+import org.lukeeirl.blockShuffle.util.Leaderboards;
+import org.lukeeirl.blockShuffle.util.NameIndex;
 import org.lukeeirl.blockShuffle.util.PlayerStats;
+import org.lukeeirl.blockShuffle.util.RankedIndex;
 import org.lukeeirl.blockShuffle.util.SkipManager;
 import org.lukeeirl.blockShuffle.util.StatsManager;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -23,12 +25,19 @@ import java.util.stream.Collectors;
 
 public class StatsCommand implements CommandExecutor, TabCompleter {
     private static final MiniMessage mm = MiniMessage.miniMessage();
+    private static final int PAGE_SIZE = 10;
+    private static final int MAX_COMPLETIONS = 50;
+    private static final List<String> METRIC_KEYS = Arrays.stream(Leaderboards.Metric.values())
+            .map(Leaderboards.Metric::key)
+            .toList();
     private final StatsManager stats;
     private final SkipManager skipManager;
+    private final NameIndex names;
 
-    public StatsCommand(StatsManager stats, SkipManager skipManager) {
+    public StatsCommand(StatsManager stats, SkipManager skipManager, NameIndex names) {
         this.stats = stats;
         this.skipManager = skipManager;
+        this.names = names;
     }
 
     @Override
@@ -38,29 +47,35 @@ public class StatsCommand implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        OfflinePlayer targetPlayer;
+        if (args.length > 0 && args[0].equalsIgnoreCase("top")) {
+            return showTop(sender, args);
+        }
+
+        UUID uuid;
+        String name;
         if (args.length > 0) {
-            targetPlayer = Arrays.stream(Bukkit.getOfflinePlayers())
-                    .filter(p -> p.getName() != null && p.getName().equalsIgnoreCase(args[0]))
-                    .findFirst().orElse(null);
-            if (targetPlayer == null) {
+            uuid = names.lookup(args[0]);
+            if (uuid == null) {
                 sender.sendMessage(mm.deserialize("<red>Player '<white>" + args[0] + "<red>' has never joined.</red>"));
                 return true;
             }
+            name = names.name(uuid);
         } else {
-            if (!(sender instanceof Player)) {
+            if (!(sender instanceof Player player)) {
                 sender.sendMessage(mm.deserialize("<red>Usage: /stats <player></red>"));
                 return true;
             }
-            targetPlayer = (Player) sender;
+            uuid = player.getUniqueId();
+            name = player.getName();
         }
 
-        UUID uuid = targetPlayer.getUniqueId();
-        PlayerStats ps = stats.get(uuid);
-        int remainingSkips = skipManager.getPurchasedSkips(uuid);
-        String name = targetPlayer.getName();
+        // Players who haven't been on recently aren't cached, so don't block the main thread reading them
+        stats.getAsync(uuid, ps -> sendStats(sender, uuid, name, ps, skipManager.getPurchasedSkips(uuid)));
+
+        return true;
+    }
 
-        assert name != null;
+    private void sendStats(CommandSender sender, UUID uuid, String name, PlayerStats ps, int remainingSkips) {
         String raw = """
         <dark_gray>╔═════════════╗</dark_gray>
         <gradient:#ADFAFF:#80A8FF><bold>  Block Shuffle Stats  </bold></gradient>
@@ -71,6 +86,8 @@ public class StatsCommand implements CommandExecutor, TabCompleter {
         <dark_gray>»</dark_gray> <white>Blocks Found: </white><green>%blocks%</green>
         <dark_gray>»</dark_gray> <white>Skips Bought: </white><green>%bought%</green>
         <dark_gray>»</dark_gray> <white>Skips Remaining: </white><green>%remaining%</green>
+        <dark_gray>»</dark_gray> <white>Rank: </white><green>%rank%</green>
+        <dark_gray>»</dark_gray> <white>Skill Rating: </white><green>%rating%</green>
         """;
         raw = raw
                 .replace("%name%",      name)
@@ -78,12 +95,81 @@ public class StatsCommand implements CommandExecutor, TabCompleter {
                 .replace("%won%",       String.valueOf(ps.gamesWon()))
                 .replace("%blocks%",    String.valueOf(ps.blocksSteppedOn()))
                 .replace("%bought%",    String.valueOf(ps.skipsBought()))
-                .replace("%remaining%", String.valueOf(remainingSkips));
+                .replace("%remaining%", String.valueOf(remainingSkips))
+                .replace("%rank%",      formatRank(uuid))
+                .replace("%rating%",    formatRating(uuid, ps));
 
         Component statsMsg = mm.deserialize(raw);
 
         sender.sendMessage(statsMsg);
+    }
+
+    private String formatRank(UUID uuid) {
+        Leaderboards leaderboards = stats.getLeaderboards();
+        if (leaderboards == null) return "loading...";
+        int rank = leaderboards.rank(Leaderboards.Metric.WINS, uuid);
+        return rank < 0 ? "unranked" : "#" + rank + " by wins";
+    }
+
+    private String formatRating(UUID uuid, PlayerStats ps) {
+        if (!ps.isRated()) return "unrated";
+        String rating = Math.round(ps.rating()) + " ±" + Math.round(2 * ps.ratingDeviation());
+        Leaderboards leaderboards = stats.getLeaderboards();
+        int rank = leaderboards == null ? -1 : leaderboards.rank(Leaderboards.Metric.RATING, uuid);
+        return rank < 0 ? rating : rating + " (#" + rank + ")";
+    }
+
+    private boolean showTop(CommandSender sender, String[] args) {
+        Leaderboards.Metric metric = args.length > 1 ? Leaderboards.Metric.fromKey(args[1]) : Leaderboards.Metric.WINS;
+        if (metric == null) {
+            sender.sendMessage(mm.deserialize("<red>Usage: /stats top <" + String.join("|", METRIC_KEYS) + "> [page]</red>"));
+            return true;
+        }
+
+        int page = 1;
+        if (args.length > 2) {
+            try {
+                page = Math.max(1, Integer.parseInt(args[2]));
+            } catch (NumberFormatException e) {
+                sender.sendMessage(mm.deserialize("<red>Page must be a number.</red>"));
+                return true;
+            }
+        }
+
+        Leaderboards leaderboards = stats.getLeaderboards();
+        if (leaderboards == null) {
+            sender.sendMessage(mm.deserialize("<yellow>Leaderboards are still loading, try again in a moment.</yellow>"));
+            return true;
+        }
+
+        int total = leaderboards.size(metric);
+        int pages = Math.max(1, (total + PAGE_SIZE - 1) / PAGE_SIZE);
+        page = Math.min(page, pages);
+
+        StringBuilder raw = new StringBuilder()
+                .append("<gradient:#ADFAFF:#80A8FF><bold>Top ").append(metric.displayName()).append("</bold></gradient>")
+                .append(" <dark_gray>(page ").append(page).append("/").append(pages).append(")</dark_gray>");
+        if (metric == Leaderboards.Metric.WINRATE) {
+            raw.append("\n<gray>Players with at least ").append(Leaderboards.MIN_GAMES_FOR_WIN_RATE).append(" games</gray>");
+        }
 
+        int position = (page - 1) * PAGE_SIZE;
+        for (RankedIndex.Entry entry : leaderboards.page(metric, page, PAGE_SIZE)) {
+            String name = names.name(entry.uuid());
+            raw.append("\n<dark_gray>»</dark_gray> <white>#").append(++position).append(" </white>")
+                    .append("<aqua>").append(name != null ? name : entry.uuid().toString().substring(0, 8)).append("</aqua>")
+                    .append(" <green>").append(metric.format(entry.score())).append("</green>");
+        }
+        if (total == 0) {
+            raw.append("\n<gray>Nobody is ranked yet.</gray>");
+        }
+
+        if (sender instanceof Player player) {
+            int rank = leaderboards.rank(metric, player.getUniqueId());
+            raw.append("\n<white>Your rank: </white><green>").append(rank < 0 ? "unranked" : "#" + rank).append("</green>");
+        }
+
+        sender.sendMessage(mm.deserialize(raw.toString()));
         return true;
     }
 
@@ -91,9 +177,16 @@ public class StatsCommand implements CommandExecutor, TabCompleter {
     public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
         if (args.length == 1) {
             String prefix = args[0].toLowerCase();
-            return Bukkit.getOnlinePlayers().stream()
-                    .map(Player::getName)
-                    .filter(name -> name.toLowerCase().startsWith(prefix))
+            List<String> suggestions = new ArrayList<>(names.complete(prefix, MAX_COMPLETIONS));
+            if ("top".startsWith(prefix)) {
+                suggestions.add("top");
+            }
+            return suggestions;
+        }
+        if (args.length == 2 && args[0].equalsIgnoreCase("top")) {
+            String prefix = args[1].toLowerCase();
+            return METRIC_KEYS.stream()
+                    .filter(key -> key.startsWith(prefix))
                     .collect(Collectors.toList());
         }
         return Collections.emptyList();
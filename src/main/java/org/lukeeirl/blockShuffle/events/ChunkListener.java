@@ -0,0 +1,20 @@
+package org.lukeeirl.blockShuffle.events;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.lukeeirl.blockShuffle.game.ChunkMaterialIndex;
+
+public class ChunkListener implements Listener {
+    private final ChunkMaterialIndex chunkMaterialIndex;
+
+    public ChunkListener(ChunkMaterialIndex chunkMaterialIndex) {
+        this.chunkMaterialIndex = chunkMaterialIndex;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        chunkMaterialIndex.index(event.getChunk());
+    }
+}
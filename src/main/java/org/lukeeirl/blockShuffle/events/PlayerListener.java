@@ -1,59 +1,69 @@
 package org.lukeeirl.blockShuffle.events;
 
+import com.destroystokyo.paper.event.server.ServerTickEndEvent;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.*;
-import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.event.player.*;
 import org.lukeeirl.blockShuffle.BlockShuffle;
+import org.lukeeirl.blockShuffle.game.CompletionDetector;
 import org.lukeeirl.blockShuffle.game.GameManager;
 import org.lukeeirl.blockShuffle.game.PlayerTracker;
-
+import org.lukeeirl.blockShuffle.game.TargetLocator;
+import org.lukeeirl.blockShuffle.game.WorldService;
+import org.lukeeirl.blockShuffle.util.NameIndex;
+import org.lukeeirl.blockShuffle.util.StatsManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import static org.lukeeirl.blockShuffle.util.PlayerUtils.prefixedMessage;
+
 public class PlayerListener implements Listener {
     private final BlockShuffle plugin;
     private final PlayerTracker playerTracker;
     private final GameManager gameManager;
-
-    public PlayerListener(BlockShuffle plugin, PlayerTracker playerTracker, GameManager gameManager) {
+    private final CompletionDetector completionDetector;
+    private final TargetLocator targetLocator;
+    private final StatsManager statsManager;
+    private final NameIndex names;
+    // Players whose portal trip is waiting on a dimension to be created, and which one
+    private final Map<UUID, String> awaitingDimension = new HashMap<>();
+
+    public PlayerListener(BlockShuffle plugin, PlayerTracker playerTracker, GameManager gameManager, CompletionDetector completionDetector, TargetLocator targetLocator, StatsManager statsManager, NameIndex names) {
         this.plugin = plugin;
         this.playerTracker = playerTracker;
         this.gameManager = gameManager;
+        this.completionDetector = completionDetector;
+        this.targetLocator = targetLocator;
+        this.statsManager = statsManager;
+        this.names = names;
     }
 
     @EventHandler
     public void onPlayerMoveEvent(PlayerMoveEvent event) {
-        Player player = event.getPlayer();
-        UUID uuid = player.getUniqueId();
-        // Does this player have an assigned block?
-        if (!playerTracker.getUserMaterialMap().containsKey(uuid)) return;
-
-        // Get their block and location
-        Material assignedBlock = playerTracker.getUserMaterialMap().get(uuid);
-        Location loc = player.getLocation();
-
-        // Check different depth layers under the player
-        boolean found = false;
-        for (double yOffset : new double[]{0.0, -0.1, -0.3, -0.6, -0.8,}) {
-            Block checkBlock = loc.clone().add(0, yOffset, 0).getBlock();
-            if (checkBlock.getType() == assignedBlock) {
-                found = true;
-                break;
-            }
-        }
+        // In sampled mode CompletionSampler does the checks on a timer instead
+        if (completionDetector.isSampled()) return;
+        completionDetector.check(event.getPlayer(), event.getTo());
+    }
 
-        if (found) {
-            gameManager.playerStandingOnBlock(player);
-        }
+    @EventHandler
+    public void onServerTickEnd(ServerTickEndEvent event) {
+        completionDetector.drain();
     }
 
     @EventHandler
     public void onPlayerJoinEvent(PlayerJoinEvent event) {
         Player player = event.getPlayer();
         UUID uuid = player.getUniqueId();
+        statsManager.prefetch(List.of(uuid));
+        names.record(uuid, player.getName());
 
         // Always call playerJoined to handle cleanup of stale spectators
         // even when no game is in progress
@@ -62,6 +72,14 @@ public class PlayerListener implements Listener {
         }
     }
 
+    @EventHandler
+    public void onPlayerQuitEvent(PlayerQuitEvent event) {
+        completionDetector.forget(event.getPlayer().getUniqueId());
+        targetLocator.forget(event.getPlayer().getUniqueId());
+        gameManager.forgetPlayer(event.getPlayer().getUniqueId());
+        awaitingDimension.remove(event.getPlayer().getUniqueId());
+    }
+
     @EventHandler
     public void onPlayerRespawnEvent(PlayerRespawnEvent event) {
         Player player = event.getPlayer();
@@ -116,8 +134,10 @@ public class PlayerListener implements Listener {
             case NETHER_PORTAL -> {
                 // Overworld → Nether
                 if (fromWorld.getName().equals(base)) {
-                    World nether = Bukkit.getWorld(base + "_nether");
-                    if (nether != null) {
+                    World nether = WorldService.dimension(fromWorld, World.Environment.NETHER);
+                    if (nether == null) {
+                        holdForDimension(event, World.Environment.NETHER, "Nether");
+                    } else {
                         Location loc = event.getTo(); // already scaled from overworld → nether
                         event.setTo(new Location(nether, loc.getX(), loc.getY(), loc.getZ()));
                         event.setCanCreatePortal(true);
@@ -141,8 +161,10 @@ public class PlayerListener implements Listener {
             case END_PORTAL -> {
                 // Overworld → The End
                 if (fromWorld.getName().equals(base)) {
-                    World theEnd = Bukkit.getWorld(base + "_the_end");
-                    if (theEnd != null) {
+                    World theEnd = WorldService.dimension(fromWorld, World.Environment.THE_END);
+                    if (theEnd == null) {
+                        holdForDimension(event, World.Environment.THE_END, "End");
+                    } else {
                         event.setTo(theEnd.getSpawnLocation());
                     }
                 }
@@ -160,4 +182,41 @@ public class PlayerListener implements Listener {
             }
         }
     }
+
+    /**
+     * Holds a portal trip into a dimension that hasn't been created yet and asks for it. The trip
+     * is cancelled, which vanilla retries every tick while the player stays in the portal, so once
+     * the dimension exists they go through as normal (with a return portal). Anyone who stepped
+     * out meanwhile is put back in the portal they used so the trip still happens.
+     */
+    private void holdForDimension(PlayerPortalEvent event, World.Environment environment, String displayName) {
+        event.setCancelled(true);
+        Player player = event.getPlayer();
+        Location portal = event.getFrom();
+        String dimension = portal.getWorld().getName() + "/" + environment;
+        // Portals fire every tick while the player stands in them; only ask once
+        if (dimension.equals(awaitingDimension.put(player.getUniqueId(), dimension))) return;
+
+        player.sendMessage(prefixedMessage(Component.text("Generating the " + displayName + "...", NamedTextColor.GRAY)));
+        gameManager.requestDimension(environment, world -> {
+            awaitingDimension.remove(player.getUniqueId(), dimension);
+            if (!player.isOnline()) return;
+            if (world == null) {
+                player.sendMessage(prefixedMessage(Component.text("The " + displayName + " couldn't be generated", NamedTextColor.RED)));
+                return;
+            }
+            // Died, left the game or went somewhere else in the meantime
+            if (!player.getWorld().equals(portal.getWorld()) || !playerTracker.getUsersInGame().contains(player.getUniqueId())) return;
+
+            player.sendMessage(prefixedMessage(Component.text("The " + displayName + " is ready, sending you through", NamedTextColor.GREEN)));
+            player.setPortalCooldown(0);
+            if (!isPortal(player.getLocation().getBlock().getType())) {
+                player.teleport(portal);
+            }
+        });
+    }
+
+    private static boolean isPortal(Material material) {
+        return material == Material.NETHER_PORTAL || material == Material.END_PORTAL;
+    }
 }
@@ -3,12 +3,16 @@ package org.lukeeirl.blockShuffle.game;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
 
+import java.util.List;
 import java.util.UUID;
 
 public interface BSGameMode {
-    void startGame();
+    /**
+     * @param gameWorld Overworld leased for this game, with its spawn area already generated
+     */
+    void startGame(World gameWorld);
     void resetGame();
-    void playerStandingOnBlock(Player player);
+    void playersStandingOnBlock(List<Player> players);
     void playerJoined(Player player);
     void sendPlayerToLobby(Player player);
     void enterSpectatorMode(Player player);
@@ -0,0 +1,199 @@
+package org.lukeeirl.blockShuffle.game;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.lukeeirl.blockShuffle.BlockShuffle;
+import org.lukeeirl.blockShuffle.util.MaterialPool;
+import org.lukeeirl.blockShuffle.util.ShuffleBag;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Picks the next block for a player according to the noRepeat setting:
+ * <ul>
+ *     <li>{@code game}: one shuffle bag shared by everyone in the game</li>
+ *     <li>{@code player}: a shuffle bag per player</li>
+ *     <li>{@code off}: independent weighted draws from the pool</li>
+ * </ul>
+ * Shuffle bags still hand every block out once per cycle; materialWeights decide how early in
+ * the cycle a block tends to come (see {@link ShuffleBag}).
+ * Once a {@link FeasibilityScanner} pass finishes, only blocks reachable in the game world are
+ * drawn; the bags are narrowed in place, so blocks already handed out this cycle aren't drawn again.
+ */
+public class BlockSelector {
+    // Weighted draws re-roll this many times before falling back to a uniform pick of the reachable blocks
+    private static final int MAX_REJECTIONS = 32;
+
+    private final MaterialPool materialPool;
+    private final FeasibilityScanner feasibilityScanner;
+    private final String noRepeat;
+    private final Random random = new Random();
+
+    // Pool indices that may be drawn, and the reachable set they came from (null = whole pool)
+    private int[] allowed = new int[0];
+    private Set<Material> reachable;
+    private int scanGeneration;
+
+    private ShuffleBag gameBag;
+    private final Map<UUID, ShuffleBag> playerBags = new HashMap<>();
+    private BiConsumer<UUID, Material> drawListener = (uuid, material) -> { };
+
+    public BlockSelector(MaterialPool materialPool, FeasibilityScanner feasibilityScanner, String noRepeat) {
+        this.materialPool = materialPool;
+        this.feasibilityScanner = feasibilityScanner;
+        this.noRepeat = noRepeat;
+        rebuildAllowed();
+        materialPool.onReload(pool -> rebuildAllowed());
+    }
+
+    /**
+     * Starts a background scan of the game world and narrows the pool to what it finds. Meant to
+     * run before the first draw; anything handed out before it finishes is left as it is and
+     * stays out of the bags.
+     *
+     * @param overworld Freshly created game overworld
+     * @param onDone Runs on the main thread once the pool is narrowed, or straight away if
+     *               scanning is off; not called if {@link #reset()} is called first
+     */
+    public void restrictToReachable(World overworld, Runnable onDone) {
+        int generation = ++scanGeneration;
+        if (!feasibilityScanner.isEnabled()) {
+            onDone.run();
+            return;
+        }
+        feasibilityScanner.scan(overworld, found -> {
+            if (generation != scanGeneration) return; // Game ended or restarted while scanning
+            if (found != null) {
+                narrowTo(found);
+            }
+            onDone.run();
+        });
+    }
+
+    /**
+     * Removes unreachable blocks from the drawable indices and from every bag mid-game, keeping
+     * track of what each bag has already handed out.
+     */
+    private void narrowTo(Set<Material> found) {
+        int[] remap = new int[allowed.length];
+        int[] kept = new int[allowed.length];
+        int count = 0;
+        for (int i = 0; i < allowed.length; i++) {
+            if (found.contains(materialPool.get(allowed[i]))) {
+                remap[i] = count;
+                kept[count++] = allowed[i];
+            } else {
+                remap[i] = -1;
+            }
+        }
+
+        if (count == 0) {
+            BlockShuffle.logger.warning("[Feasibility] None of the " + allowed.length + " pool blocks are reachable, using the whole pool");
+            return;
+        }
+        BlockShuffle.logger.info("[Feasibility] " + count + " of " + allowed.length + " pool blocks are reachable");
+
+        reachable = found;
+        allowed = Arrays.copyOf(kept, count);
+        if (gameBag != null) {
+            gameBag = gameBag.narrow(remap);
+        }
+        playerBags.replaceAll((uuid, bag) -> bag.narrow(remap));
+    }
+
+    /**
+     * Registers a callback told about every block handed out, e.g. for game history.
+     */
+    public void onDraw(BiConsumer<UUID, Material> listener) {
+        this.drawListener = listener;
+    }
+
+    public Material next(UUID uuid) {
+        Material material = draw(uuid);
+        drawListener.accept(uuid, material);
+        return material;
+    }
+
+    private Material draw(UUID uuid) {
+        if (noRepeat.equalsIgnoreCase("player")) {
+            ShuffleBag bag = playerBags.computeIfAbsent(uuid, id -> newBag());
+            return materialPool.get(allowed[bag.draw(random)]);
+        }
+
+        if (noRepeat.equalsIgnoreCase("game")) {
+            if (gameBag == null) {
+                gameBag = newBag();
+            }
+            return materialPool.get(allowed[gameBag.draw(random)]);
+        }
+
+        if (reachable == null) {
+            return materialPool.random(random);
+        }
+        for (int attempt = 0; attempt < MAX_REJECTIONS; attempt++) {
+            Material material = materialPool.random(random);
+            if (reachable.contains(material)) return material;
+        }
+        return materialPool.get(allowed[random.nextInt(allowed.length)]);
+    }
+
+    private ShuffleBag newBag() {
+        if (!materialPool.isWeighted()) {
+            return new ShuffleBag(allowed.length);
+        }
+        double[] weights = new double[allowed.length];
+        for (int i = 0; i < allowed.length; i++) {
+            weights[i] = materialPool.weight(allowed[i]);
+        }
+        return new ShuffleBag(allowed.length, weights);
+    }
+
+    /**
+     * Drops a player's bag once they are out of the game or have left.
+     */
+    public void forget(UUID uuid) {
+        playerBags.remove(uuid);
+    }
+
+    public void reset() {
+        scanGeneration++;
+        reachable = null;
+        rebuildAllowed();
+    }
+
+    /**
+     * Recomputes the drawable indices from scratch after the pool changes or on reset.
+     * Bags hold indices into the old array, so they are dropped too.
+     */
+    private void rebuildAllowed() {
+        int size = materialPool.size();
+        int[] indices = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (reachable == null || reachable.contains(materialPool.get(i))) {
+                indices[count++] = i;
+            }
+        }
+
+        if (count == 0) {
+            BlockShuffle.logger.warning("[Feasibility] None of the " + size + " pool blocks are reachable, using the whole pool");
+            reachable = null;
+            for (int i = 0; i < size; i++) {
+                indices[i] = i;
+            }
+            count = size;
+        } else if (reachable != null) {
+            BlockShuffle.logger.info("[Feasibility] " + count + " of " + size + " pool blocks are reachable");
+        }
+
+        allowed = Arrays.copyOf(indices, count);
+        gameBag = null;
+        playerBags.clear();
+    }
+}
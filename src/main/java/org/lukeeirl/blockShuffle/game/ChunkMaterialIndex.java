@@ -0,0 +1,197 @@
+package org.lukeeirl.blockShuffle.game;
+
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.lukeeirl.blockShuffle.BlockShuffle;
+import org.lukeeirl.blockShuffle.util.MaterialPool;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Remembers which pool materials each chunk of a game world contained when it was loaded.
+ * Chunks are snapshotted on the main thread and scanned on the common ForkJoin pool, so the
+ * main thread never iterates blocks. Entries outlive chunk unloads (the index covers the
+ * explored area) and are released when the game world is deleted.
+ */
+public class ChunkMaterialIndex {
+    private static final int NO_POSITION = Integer.MIN_VALUE;
+
+    private final Map<UUID, WorldIndex> worlds = new ConcurrentHashMap<>();
+    // Bitset over Material ordinals of the blocks worth recording; swapped whole on pool reload
+    private volatile long[] poolMask;
+
+    public ChunkMaterialIndex(MaterialPool materialPool) {
+        this.poolMask = maskOf(materialPool.asList());
+        materialPool.onReload(pool -> this.poolMask = maskOf(pool.asList()));
+    }
+
+    /**
+     * Queues a freshly loaded chunk for indexing. Only the snapshot is taken on the calling thread.
+     *
+     * @param chunk Chunk that was just loaded
+     */
+    public void index(Chunk chunk) {
+        World world = chunk.getWorld();
+        if (!WorldService.isGameWorld(world)) return;
+
+        WorldIndex worldIndex = worlds.computeIfAbsent(world.getUID(), id -> new WorldIndex());
+        ChunkSnapshot snapshot = chunk.getChunkSnapshot(false, false, false);
+        long[] mask = poolMask;
+        int minHeight = world.getMinHeight();
+        int maxHeight = world.getMaxHeight();
+
+        CompletableFuture.runAsync(() -> {
+            ChunkEntry entry = scan(snapshot, mask, minHeight, maxHeight);
+            // Drop the result if the world was released while this chunk was being scanned
+            if (worlds.get(world.getUID()) == worldIndex) {
+                worldIndex.put(entry);
+            }
+        }, ForkJoinPool.commonPool()).exceptionally(error -> {
+            BlockShuffle.logger.warning("[ChunkIndex] Failed to index chunk " + chunk.getX() + "," + chunk.getZ() + ": " + error.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Whether any indexed chunk in the world contains the material. O(1).
+     */
+    public boolean hasSeen(World world, Material material) {
+        WorldIndex worldIndex = worlds.get(world.getUID());
+        return worldIndex != null && worldIndex.counts.get(material.ordinal()) > 0;
+    }
+
+    /**
+     * Indexed chunks of a world, for lookups that need positions. Safe to read from any thread.
+     */
+    public Collection<ChunkEntry> chunks(World world) {
+        WorldIndex worldIndex = worlds.get(world.getUID());
+        return worldIndex == null ? List.of() : worldIndex.chunks.values();
+    }
+
+    public int indexedChunks(World world) {
+        WorldIndex worldIndex = worlds.get(world.getUID());
+        return worldIndex == null ? 0 : worldIndex.chunks.size();
+    }
+
+    public void release(World world) {
+        if (world != null) {
+            worlds.remove(world.getUID());
+        }
+    }
+
+    private static ChunkEntry scan(ChunkSnapshot snapshot, long[] mask, int minHeight, int maxHeight) {
+        long[] present = new long[mask.length];
+        int[] firstSeen = new int[mask.length << 6];
+        int found = 0;
+
+        // Top down, so the position kept for each material is the highest one in the chunk
+        for (int sectionY = maxHeight - 16; sectionY >= minHeight; sectionY -= 16) {
+            if (snapshot.isSectionEmpty((sectionY - minHeight) >> 4)) continue;
+            for (int y = sectionY + 15; y >= sectionY; y--) {
+                for (int x = 0; x < 16; x++) {
+                    for (int z = 0; z < 16; z++) {
+                        int ordinal = snapshot.getBlockType(x, y, z).ordinal();
+                        int word = ordinal >>> 6;
+                        long bit = 1L << ordinal;
+                        if ((mask[word] & bit) == 0 || (present[word] & bit) != 0) continue;
+                        present[word] |= bit;
+                        firstSeen[ordinal] = pack(x, y, z);
+                        found++;
+                    }
+                }
+            }
+        }
+
+        // Positions are stored in bit order, so a material's slot is its rank among the set bits
+        int[] positions = new int[found];
+        int slot = 0;
+        for (int word = 0; word < present.length; word++) {
+            for (long bits = present[word]; bits != 0; bits &= bits - 1) {
+                positions[slot++] = firstSeen[(word << 6) + Long.numberOfTrailingZeros(bits)];
+            }
+        }
+        return new ChunkEntry(snapshot.getX(), snapshot.getZ(), present, positions);
+    }
+
+    private static long[] maskOf(Collection<Material> materials) {
+        long[] mask = new long[(Material.values().length + 63) >>> 6];
+        for (Material material : materials) {
+            mask[material.ordinal() >>> 6] |= 1L << material.ordinal();
+        }
+        return mask;
+    }
+
+    private static int pack(int x, int y, int z) {
+        return (y << 8) | (x << 4) | z;
+    }
+
+    /**
+     * Pool materials present in one chunk, with one representative block position for each.
+     */
+    public record ChunkEntry(int chunkX, int chunkZ, long[] present, int[] positions) {
+        public boolean contains(Material material) {
+            int ordinal = material.ordinal();
+            int word = ordinal >>> 6;
+            return word < present.length && (present[word] & (1L << ordinal)) != 0;
+        }
+
+        /**
+         * @return Packed position of the highest block of this material in the chunk, or {@link Integer#MIN_VALUE}
+         */
+        public int position(Material material) {
+            if (!contains(material)) return NO_POSITION;
+            int ordinal = material.ordinal();
+            int word = ordinal >>> 6;
+            int rank = Long.bitCount(present[word] & ((1L << ordinal) - 1));
+            for (int i = 0; i < word; i++) {
+                rank += Long.bitCount(present[i]);
+            }
+            return positions[rank];
+        }
+
+        public int blockX(int packed) {
+            return (chunkX << 4) | ((packed >> 4) & 0xF);
+        }
+
+        public static int blockY(int packed) {
+            return packed >> 8;
+        }
+
+        public int blockZ(int packed) {
+            return (chunkZ << 4) | (packed & 0xF);
+        }
+    }
+
+    private static final class WorldIndex {
+        private final Map<Long, ChunkEntry> chunks = new ConcurrentHashMap<>();
+        // Number of indexed chunks containing each material, by ordinal
+        private final AtomicIntegerArray counts = new AtomicIntegerArray(Material.values().length);
+
+        private void put(ChunkEntry entry) {
+            long key = ((long) entry.chunkX() << 32) | (entry.chunkZ() & 0xFFFFFFFFL);
+            ChunkEntry previous = chunks.put(key, entry);
+            adjust(entry, 1);
+            if (previous != null) {
+                adjust(previous, -1);
+            }
+        }
+
+        private void adjust(ChunkEntry entry, int delta) {
+            long[] present = entry.present();
+            for (int word = 0; word < present.length; word++) {
+                for (long bits = present[word]; bits != 0; bits &= bits - 1) {
+                    counts.addAndGet((word << 6) + Long.numberOfTrailingZeros(bits), delta);
+                }
+            }
+        }
+    }
+}
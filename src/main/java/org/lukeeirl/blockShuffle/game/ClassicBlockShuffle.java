@@ -8,7 +8,6 @@ import org.bukkit.*;
 import org.bukkit.boss.BarColor;
 import org.bukkit.boss.BarStyle;
 import org.bukkit.boss.BossBar;
-import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.lukeeirl.blockShuffle.BlockShuffle;
 import org.lukeeirl.blockShuffle.ui.SettingsGUI;
@@ -19,7 +18,6 @@ import org.lukeeirl.blockShuffle.util.TaskRegistry;
 
 import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static org.lukeeirl.blockShuffle.util.PlayerUtils.*;
 import static org.lukeeirl.blockShuffle.util.BlockShuffleUtils.*;
@@ -28,7 +26,8 @@ public class ClassicBlockShuffle implements BSGameMode {
 
     private final PlayerTracker tracker;
     private final BlockShuffle plugin;
-    private final YamlConfiguration settings;
+    private final BlockSelector blockSelector;
+    private final GameRecorder recorder;
     private final SettingsGUI settingsGUI;
     private final WorldService worldService;
     private final SkipManager skipManager;
@@ -40,7 +39,6 @@ public class ClassicBlockShuffle implements BSGameMode {
     private int ticksInRound = 6000; // 6000 ticks = 300 sec = 5 min
     private int roundNumber = 0;
 
-    private List<Material> materials;
     private final TaskRegistry tasks = new TaskRegistry();
     private int roundEndTask;
     private BossBar bossBar;
@@ -50,10 +48,11 @@ public class ClassicBlockShuffle implements BSGameMode {
     private long gameInstanceId;
     private int creeperSoundTask = -1;
 
-    public ClassicBlockShuffle(PlayerTracker tracker, BlockShuffle plugin, YamlConfiguration settings, SettingsGUI settingsGUI, WorldService worldService, World lobbyWorld, SkipManager skipManager, StatsManager stats, CreeperManager creeperManager) {
+    public ClassicBlockShuffle(PlayerTracker tracker, BlockShuffle plugin, BlockSelector blockSelector, GameRecorder recorder, SettingsGUI settingsGUI, WorldService worldService, World lobbyWorld, SkipManager skipManager, StatsManager stats, CreeperManager creeperManager) {
         this.tracker = tracker;
         this.plugin = plugin;
-        this.settings = settings;
+        this.blockSelector = blockSelector;
+        this.recorder = recorder;
         this.settingsGUI = settingsGUI;
         this.worldService = worldService;
         this.lobbyWorld = lobbyWorld;
@@ -64,15 +63,13 @@ public class ClassicBlockShuffle implements BSGameMode {
     }
 
     @Override
-    public void startGame() {
+    public void startGame(World gameWorld) {
         tasks.cancelAll();
         this.inProgress = true;
         this.gameInstanceId = System.currentTimeMillis();
+        recorder.start(this.gameInstanceId);
         this.ticksInRound = settingsGUI.getRoundTimeTicks();
-        String baseWorldName = "blockshuffle_" + this.gameInstanceId;
-        currentGameWorld = worldService.createLinkedWorlds(baseWorldName);
-        String materialPath = "materials";
-        this.materials = this.settings.getStringList(materialPath).stream().map(Material::getMaterial).collect(Collectors.toList());
+        currentGameWorld = gameWorld;
 
         for (UUID uuid : tracker.getReadyPlayers()) {
             stats.recordPlayed(uuid);
@@ -81,9 +78,9 @@ public class ClassicBlockShuffle implements BSGameMode {
                 resetPlayerState(player, GameMode.SURVIVAL);
                 player.teleport(currentGameWorld.getSpawnLocation());
                 tracker.addInGame(uuid);
+                recorder.joined(uuid);
             }
         }
-        stats.saveAll();
         this.bossBar = this.createBossBar();
         this.startNewRound();
         tasks.track(Bukkit.getScheduler().runTaskTimer(this.plugin, this::refreshPlayerUI, 0L, 20L));
@@ -92,11 +89,15 @@ public class ClassicBlockShuffle implements BSGameMode {
 
     @Override
     public void resetGame() {
+        recorder.finish(this.roundNumber);
         this.roundNumber = 0;
         inProgress = false;
         this.gameInstanceId = 0;
         BlockShuffle.logger.info("[Game State] Game ended — setInProgress(false) from resetGame()");
-        this.bossBar.removeAll();
+        if (this.bossBar != null) {
+            this.bossBar.removeAll();
+            this.bossBar = null;
+        }
         Bukkit.getScheduler().cancelTask(this.roundEndTask);
         tasks.cancelAll();
         if (this.creeperSoundTask != -1) {
@@ -125,6 +126,7 @@ public class ClassicBlockShuffle implements BSGameMode {
         }
 
         tracker.clearAll();
+        blockSelector.reset();
 
         for (UUID uuid : offlineSpectators) {
             tracker.addSpectator(uuid);
@@ -138,20 +140,27 @@ public class ClassicBlockShuffle implements BSGameMode {
     }
 
     @Override
-    public void playerStandingOnBlock(Player player) {
-        UUID uuid = player.getUniqueId();
-        Material assignedBlock = tracker.getUserMaterialMap().get(uuid);
+    public void playersStandingOnBlock(List<Player> players) {
+        List<Player> finishers = new ArrayList<>(players.size());
+        List<Material> blocks = new ArrayList<>(players.size());
+        List<UUID> completed = new ArrayList<>(players.size());
+
+        for (Player player : players) {
+            UUID uuid = player.getUniqueId();
+            Material assignedBlock = tracker.getUserMaterialMap().remove(uuid);
+            if (assignedBlock == null) continue;
+            recorder.found(uuid, assignedBlock);
+
+            player.playSound(player.getLocation(), Sound.ENTITY_EXPERIENCE_ORB_PICKUP, 1.0f, 1.0f);
+            tracker.addCompleted(uuid);
+            finishers.add(player);
+            blocks.add(assignedBlock);
+            completed.add(uuid);
+        }
+        if (completed.isEmpty()) return;
 
-        String blockName = formatMaterialName(assignedBlock);
-        Bukkit.broadcast(prefixedMessage(
-                Component.text(player.getName() + " ", NamedTextColor.WHITE)
-                        .append(Component.text("stood on their block. Their block was: ", NamedTextColor.GREEN))
-                        .append(Component.text(blockName, NamedTextColor.GREEN, TextDecoration.BOLD))));
-        player.playSound(player.getLocation(), Sound.ENTITY_EXPERIENCE_ORB_PICKUP, 1.0f, 1.0f);
-        tracker.addCompleted(uuid);
-        stats.recordBlockSteppedOn(uuid);
-        stats.save(uuid);
-        tracker.getUserMaterialMap().remove(uuid);
+        announceCompletions(finishers, blocks);
+        stats.recordBlocksSteppedOn(completed);
 
         if (tracker.getCompletedUsers().size() == tracker.getUsersInGame().size()) {
             BlockShuffle.logger.info("[Game State] All players completed their block — starting next round");
@@ -167,7 +176,9 @@ public class ClassicBlockShuffle implements BSGameMode {
         // Handle active players
         if (tracker.getUsersInGame().contains(uuid)) {
             if (currentGameWorld != null) {
-                bossBar.addPlayer(player);
+                if (bossBar != null) {
+                    bossBar.addPlayer(player);
+                }
                 player.sendMessage(prefixedMessage(
                         Component.text("You've rejoined the game", NamedTextColor.GREEN)));
 
@@ -237,10 +248,9 @@ public class ClassicBlockShuffle implements BSGameMode {
         if (usedSkips == 0) {
             // First skip is free
             BlockShuffle.logger.info("[SKIP] First (free) skip being used.");
-        } else if (purchasedSkips > 0) {
+        } else if (skipManager.consumeSkip(uuid)) {
             // Beyond first, use purchased skip
-            BlockShuffle.logger.info("[SKIP] Consuming one purchased skip for " + uuid);
-            skipManager.consumeSkip(uuid);
+            BlockShuffle.logger.info("[SKIP] Consumed one purchased skip for " + uuid);
         } else {
             BlockShuffle.logger.info("[SKIP] No purchased skips remaining. Denying skip.");
             return false;
@@ -261,7 +271,7 @@ public class ClassicBlockShuffle implements BSGameMode {
             return false;
         }
 
-        Material newBlock = getRandomMaterial(materials, random);
+        Material newBlock = blockSelector.next(uuid);
         tracker.assignBlock(uuid, newBlock);
         tracker.addSkipped(uuid);
 
@@ -316,6 +326,8 @@ public class ClassicBlockShuffle implements BSGameMode {
 
             // Announce elimination with coordinates if items were dropped
             announceElimination(uuid, tracker, player.getLocation(), hasItems);
+            recorder.eliminated(uuid);
+            blockSelector.forget(uuid);
 
             tracker.getUserMaterialMap().remove(uuid);
 
@@ -353,6 +365,8 @@ public class ClassicBlockShuffle implements BSGameMode {
             strikeLightningWithoutFire(player.getLocation());
             boolean hasItems = dropItemsInChest(player);
             announceElimination(uuid, tracker, player.getLocation(), hasItems);
+            recorder.eliminated(uuid);
+            blockSelector.forget(uuid);
 
             // Remove from active game
             tracker.getUsersInGame().remove(uuid);
@@ -409,7 +423,7 @@ public class ClassicBlockShuffle implements BSGameMode {
         this.roundStartTime = System.currentTimeMillis();
 
         for (UUID uuid : tracker.getUsersInGame()) {
-            assignNewBlockToPlayer(uuid, tracker, materials, random);
+            assignNewBlockToPlayer(uuid, tracker, blockSelector);
         }
 
         this.roundEndTask = Bukkit.getScheduler().scheduleSyncDelayedTask(this.plugin, this::nextRound, this.ticksInRound);
@@ -446,6 +460,7 @@ public class ClassicBlockShuffle implements BSGameMode {
     }
 
     private void refreshPlayerUI() {
+        if (this.bossBar == null) return;
         long timeSinceRoundStart = System.currentTimeMillis() - this.roundStartTime;
         long millisInRound = ((this.ticksInRound) / 20) * 1000L;
         long millisRemaining = millisInRound - timeSinceRoundStart;
@@ -521,6 +536,8 @@ public class ClassicBlockShuffle implements BSGameMode {
 
                     // Announce elimination with coordinates if items were dropped
                     announceElimination(uuid, tracker, player.getLocation(), hasItems);
+                    recorder.eliminated(uuid);
+                    blockSelector.forget(uuid);
 
                     tracker.addSpectator(uuid);
                     tracker.getSpectatorGameId().put(uuid, this.gameInstanceId);
@@ -528,6 +545,8 @@ public class ClassicBlockShuffle implements BSGameMode {
                 } else {
                     // Player is offline - still announce elimination and track as spectator
                     announceElimination(uuid, tracker, null, false);
+                    recorder.eliminated(uuid);
+                    blockSelector.forget(uuid);
 
                     tracker.addSpectator(uuid);
                     tracker.getSpectatorGameId().put(uuid, this.gameInstanceId);
@@ -562,6 +581,7 @@ public class ClassicBlockShuffle implements BSGameMode {
 
     private void announceWinnersAndReset() {
         for (UUID uuid : tracker.getUsersInGame()) {
+            recorder.won(uuid);
             Player player = Bukkit.getPlayer(uuid);
             if (player != null && player.isOnline()) {
                 Bukkit.broadcast(prefixedMessage(
@@ -569,7 +589,6 @@ public class ClassicBlockShuffle implements BSGameMode {
                                 .append(Component.text("won the game!", NamedTextColor.GREEN))));
                 player.playSound(player.getLocation(), Sound.ENTITY_ENDER_DRAGON_DEATH, 0.5f, 1.0f);
                 stats.recordWin(uuid);
-                stats.save(uuid);
             }
         }
 
@@ -0,0 +1,159 @@
+package org.lukeeirl.blockShuffle.game;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Decides when a player is standing on their assigned block.
+ * Only re-checks the world when the blocks under the player's bounding box, their on-ground
+ * state or their target changes, so head rotation and sub-block movement cost a map lookup.
+ * Fed either by PlayerMoveEvent or by {@link CompletionSampler}, depending on detectionMode.
+ * Completions are queued and handed to the game once per tick by {@link #drain()}.
+ */
+public class CompletionDetector {
+    // Matches ContactResolver's jump tolerance so the gate changes whenever the result could
+    private static final double PROBE_DEPTH = 0.8;
+    private static final double EPSILON = 1.0E-4;
+
+    private final PlayerTracker tracker;
+    private final GameManager gameManager;
+    private final ContactResolver contactResolver;
+    private final boolean sampled;
+    private final Map<UUID, ProbeState> states = new HashMap<>();
+    // Player -> the target they were seen on, in the order they completed this tick
+    private final Map<UUID, Material> pending = new LinkedHashMap<>();
+
+    private long probesPerformed;
+    private long eventsSkipped;
+
+    public CompletionDetector(PlayerTracker tracker, GameManager gameManager, ContactResolver contactResolver, boolean sampled) {
+        this.tracker = tracker;
+        this.gameManager = gameManager;
+        this.contactResolver = contactResolver;
+        this.sampled = sampled;
+    }
+
+    /**
+     * Checks a player against their assigned block at the given location.
+     *
+     * @param player Player that moved
+     * @param to Location the player moved to
+     */
+    @SuppressWarnings("deprecation")
+    public void check(Player player, Location to) {
+        UUID uuid = player.getUniqueId();
+        Material target = tracker.getUserMaterialMap().get(uuid);
+        if (target == null) return;
+
+        World world = to.getWorld();
+        double x = to.getX();
+        double y = to.getY();
+        double z = to.getZ();
+        double halfWidth = player.getWidth() / 2;
+        int minX = (int) Math.floor(x - halfWidth);
+        int maxX = (int) Math.floor(x + halfWidth - EPSILON);
+        int minZ = (int) Math.floor(z - halfWidth);
+        int maxZ = (int) Math.floor(z + halfWidth - EPSILON);
+        int top = to.getBlockY();
+        int bottom = (int) Math.floor(y - PROBE_DEPTH);
+        boolean onGround = player.isOnGround();
+
+        ProbeState state = states.computeIfAbsent(uuid, id -> new ProbeState());
+        if (state.matches(world, minX, maxX, minZ, maxZ, top, bottom, onGround, target)) {
+            eventsSkipped++;
+            return;
+        }
+        state.update(world, minX, maxX, minZ, maxZ, top, bottom, onGround, target);
+        probesPerformed++;
+
+        if (contactResolver.isTouching(world, x, y, z, halfWidth, target)) {
+            pending.put(uuid, target);
+        }
+    }
+
+    /**
+     * Hands every completion queued this tick to the game as one batch.
+     * Entries whose target changed since they were queued (skip, reset, etc.) are dropped.
+     * Each drained player's gate is reset, so they are probed again even if they don't move and
+     * get the same block next round.
+     */
+    public void drain() {
+        if (pending.isEmpty()) return;
+
+        List<Player> players = new ArrayList<>(pending.size());
+        for (Map.Entry<UUID, Material> entry : pending.entrySet()) {
+            states.remove(entry.getKey());
+            Player player = Bukkit.getPlayer(entry.getKey());
+            if (player != null && tracker.getUserMaterialMap().get(entry.getKey()) == entry.getValue()) {
+                players.add(player);
+            }
+        }
+        pending.clear();
+
+        if (!players.isEmpty()) {
+            gameManager.playersStandingOnBlock(players);
+        }
+    }
+
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    public void forget(UUID uuid) {
+        states.remove(uuid);
+        pending.remove(uuid);
+    }
+
+    public long getProbesPerformed() {
+        return probesPerformed;
+    }
+
+    public long getEventsSkipped() {
+        return eventsSkipped;
+    }
+
+    public void resetCounters() {
+        probesPerformed = 0;
+        eventsSkipped = 0;
+    }
+
+    private static final class ProbeState {
+        private World world;
+        private int minX;
+        private int maxX;
+        private int minZ;
+        private int maxZ;
+        private int top;
+        private int bottom;
+        private boolean onGround;
+        private Material target;
+
+        private boolean matches(World world, int minX, int maxX, int minZ, int maxZ, int top, int bottom, boolean onGround, Material target) {
+            return this.world == world && this.minX == minX && this.maxX == maxX && this.minZ == minZ
+                    && this.maxZ == maxZ && this.top == top && this.bottom == bottom
+                    && this.onGround == onGround && this.target == target;
+        }
+
+        private void update(World world, int minX, int maxX, int minZ, int maxZ, int top, int bottom, boolean onGround, Material target) {
+            this.world = world;
+            this.minX = minX;
+            this.maxX = maxX;
+            this.minZ = minZ;
+            this.maxZ = maxZ;
+            this.top = top;
+            this.bottom = bottom;
+            this.onGround = onGround;
+            this.target = target;
+        }
+    }
+}
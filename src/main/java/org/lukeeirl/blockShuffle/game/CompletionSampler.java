@@ -0,0 +1,75 @@
+package org.lukeeirl.blockShuffle.game;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.lukeeirl.blockShuffle.BlockShuffle;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Tick-driven alternative to checking blocks on every PlayerMoveEvent.
+ * Every few ticks it walks the players that currently have a target, grouped by world,
+ * which also catches completions the move event never reports (pistons, vehicles, etc.).
+ */
+public class CompletionSampler {
+    private final Plugin plugin;
+    private final PlayerTracker tracker;
+    private final CompletionDetector detector;
+    private final int intervalTicks;
+
+    // Reused between samples so a pass doesn't allocate per player
+    private final Map<World, List<Player>> playersByWorld = new HashMap<>();
+    private final Location scratch = new Location(null, 0, 0, 0);
+    private BukkitTask task;
+
+    public CompletionSampler(Plugin plugin, PlayerTracker tracker, CompletionDetector detector, int intervalTicks) {
+        this.plugin = plugin;
+        this.tracker = tracker;
+        this.detector = detector;
+        this.intervalTicks = Math.max(1, intervalTicks);
+    }
+
+    public void start() {
+        if (task != null) return;
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::sample, intervalTicks, intervalTicks);
+        BlockShuffle.logger.info("[Detection] Sampling players with targets every " + intervalTicks + " ticks");
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private void sample() {
+        if (tracker.getUserMaterialMap().isEmpty()) return;
+
+        for (List<Player> players : playersByWorld.values()) {
+            players.clear();
+        }
+
+        for (UUID uuid : tracker.getUserMaterialMap().keySet()) {
+            Player player = Bukkit.getPlayer(uuid);
+            if (player == null) continue;
+            playersByWorld.computeIfAbsent(player.getWorld(), world -> new ArrayList<>()).add(player);
+        }
+
+        for (List<Player> players : playersByWorld.values()) {
+            for (Player player : players) {
+                detector.check(player, player.getLocation(scratch));
+            }
+        }
+
+        // Drop worlds nobody is in anymore so deleted game worlds aren't kept alive
+        playersByWorld.values().removeIf(List::isEmpty);
+    }
+}
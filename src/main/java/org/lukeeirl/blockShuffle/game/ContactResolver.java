@@ -0,0 +1,118 @@
+package org.lukeeirl.blockShuffle.game;
+
+import org.bukkit.Material;
+import org.bukkit.Tag;
+import org.bukkit.World;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Works out whether a player's bounding box is resting on (or standing in) a given material.
+ * Collision heights are looked up from a per-material profile table built once from the
+ * {@link org.lukeeirl.blockShuffle.util.MaterialPool}, so a check reads only the one or two
+ * layers the target could be in.
+ */
+public class ContactResolver {
+    private static final double EPSILON = 1.0E-4;
+    // How far above a block's top the feet may be and still count, so jumping on a block works
+    private static final double JUMP_TOLERANCE = 0.8;
+
+    private static final Profile PASSABLE = new Profile(0.0, 0.0);
+    private static final Profile FULL = new Profile(1.0, 1.0);
+
+    private final Map<Material, Profile> profiles = new EnumMap<>(Material.class);
+
+    /**
+     * Range of heights (relative to the block's own Y) a player can be standing at on this block.
+     * Passable blocks like rails and pressure plates are 0..0 since the player stands inside them.
+     */
+    public record Profile(double minTop, double maxTop) {}
+
+    public ContactResolver(Collection<Material> materials) {
+        rebuild(materials);
+    }
+
+    public void rebuild(Collection<Material> materials) {
+        profiles.clear();
+        for (Material material : materials) {
+            if (material != null) {
+                profiles.put(material, profileFor(material));
+            }
+        }
+    }
+
+    /**
+     * Checks whether any block under the player's feet matching {@code target} is in contact with them.
+     *
+     * @param world World the player is in
+     * @param x Player X
+     * @param y Player feet Y
+     * @param z Player Z
+     * @param halfWidth Half of the player's bounding box width
+     * @param target Material to look for
+     * @return true if the player is standing on or in the target
+     */
+    public boolean isTouching(World world, double x, double y, double z, double halfWidth, Material target) {
+        Profile profile = profiles.computeIfAbsent(target, ContactResolver::profileFor);
+
+        int centerX = floor(x);
+        int centerZ = floor(z);
+        int minX = floor(x - halfWidth);
+        int maxX = floor(x + halfWidth - EPSILON);
+        int minZ = floor(z - halfWidth);
+        int maxZ = floor(z + halfWidth - EPSILON);
+        int feetY = floor(y);
+
+        // The target can only be in contact from the feet layer or the layer below it
+        for (int blockY = feetY; blockY >= feetY - 1; blockY--) {
+            double low = blockY + profile.minTop();
+            double high = blockY + profile.maxTop();
+            if (y < low - EPSILON || y > high + JUMP_TOLERANCE) continue;
+
+            // Most of the time the player is over the middle of a block, so try that column first
+            if (world.getType(centerX, blockY, centerZ) == target) return true;
+
+            for (int blockX = minX; blockX <= maxX; blockX++) {
+                for (int blockZ = minZ; blockZ <= maxZ; blockZ++) {
+                    if (blockX == centerX && blockZ == centerZ) continue;
+                    if (world.getType(blockX, blockY, blockZ) == target) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Profile profileFor(Material material) {
+        if (material.name().endsWith("_CARPET")) return new Profile(0.0625, 0.0625);
+        if (material == Material.SNOW) return new Profile(0.0, 0.875);
+        if (material == Material.LILY_PAD) return new Profile(0.09375, 0.09375);
+        if (material == Material.REPEATER || material == Material.COMPARATOR) return new Profile(0.125, 0.125);
+        if (material == Material.DAYLIGHT_DETECTOR) return new Profile(0.375, 0.375);
+        if (material == Material.CAMPFIRE || material == Material.SOUL_CAMPFIRE) return new Profile(0.4375, 0.4375);
+        if (material == Material.CAKE) return new Profile(0.5, 0.5);
+        if (material == Material.STONECUTTER) return new Profile(0.5625, 0.5625);
+        if (material == Material.ENCHANTING_TABLE) return new Profile(0.75, 0.75);
+        if (material == Material.END_PORTAL_FRAME) return new Profile(0.8125, 0.8125);
+        if (material == Material.SOUL_SAND || material == Material.MUD
+                || material == Material.CHEST || material == Material.TRAPPED_CHEST
+                || material == Material.ENDER_CHEST) return new Profile(0.875, 0.875);
+        if (material == Material.FARMLAND || material == Material.DIRT_PATH
+                || material == Material.HONEY_BLOCK) return new Profile(0.9375, 0.9375);
+        if (material == Material.CAULDRON) return new Profile(0.25, 1.0);
+        if (material == Material.COMPOSTER) return new Profile(0.125, 1.0);
+        if (material == Material.HOPPER) return new Profile(0.625, 1.0);
+        if (Tag.BEDS.isTagged(material)) return new Profile(0.5625, 0.5625);
+        if (Tag.SLABS.isTagged(material) || Tag.STAIRS.isTagged(material)) return new Profile(0.5, 1.0);
+        if (Tag.TRAPDOORS.isTagged(material)) return new Profile(0.1875, 1.0);
+        if (Tag.FENCES.isTagged(material) || Tag.WALLS.isTagged(material)
+                || Tag.FENCE_GATES.isTagged(material)) return new Profile(1.5, 1.5);
+        return material.isSolid() ? FULL : PASSABLE;
+    }
+
+    private static int floor(double value) {
+        int truncated = (int) value;
+        return value < truncated ? truncated - 1 : truncated;
+    }
+}
@@ -8,7 +8,6 @@ import org.bukkit.*;
 import org.bukkit.boss.BarColor;
 import org.bukkit.boss.BarStyle;
 import org.bukkit.boss.BossBar;
-import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.scoreboard.Scoreboard;
 import org.lukeeirl.blockShuffle.BlockShuffle;
@@ -18,7 +17,6 @@ import org.lukeeirl.blockShuffle.util.TaskRegistry;
 
 import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static org.lukeeirl.blockShuffle.util.PlayerUtils.*;
 import static org.lukeeirl.blockShuffle.util.BlockShuffleUtils.*;
@@ -27,7 +25,8 @@ public class ContinuousBlockShuffle implements BSGameMode {
 
     private final PlayerTracker tracker;
     private final BlockShuffle plugin;
-    private final YamlConfiguration settings;
+    private final BlockSelector blockSelector;
+    private final GameRecorder recorder;
     private final SettingsGUI settingsGUI;
     private final WorldService worldService;
     private final CreeperManager creeperManager;
@@ -35,7 +34,6 @@ public class ContinuousBlockShuffle implements BSGameMode {
     private final Random random;
 
     private int ticksInRound = 6000;
-    private List<Material> materials;
     private World currentGameWorld;
     private boolean inProgress;
     private long gameInstanceId;
@@ -50,7 +48,8 @@ public class ContinuousBlockShuffle implements BSGameMode {
     public ContinuousBlockShuffle(
             PlayerTracker tracker,
             BlockShuffle plugin,
-            YamlConfiguration settings,
+            BlockSelector blockSelector,
+            GameRecorder recorder,
             SettingsGUI settingsGUI,
             WorldService worldService,
             World lobbyWorld,
@@ -58,7 +57,8 @@ public class ContinuousBlockShuffle implements BSGameMode {
     ) {
         this.tracker = tracker;
         this.plugin = plugin;
-        this.settings = settings;
+        this.blockSelector = blockSelector;
+        this.recorder = recorder;
         this.settingsGUI = settingsGUI;
         this.worldService = worldService;
         this.lobbyWorld = lobbyWorld;
@@ -67,19 +67,17 @@ public class ContinuousBlockShuffle implements BSGameMode {
     }
 
     @Override
-    public void startGame() {
+    public void startGame(World gameWorld) {
         // Initialize game settings
         BlockShuffle.logger.info("[Game State] Continuous game started — setInProgress(true) from startGame()");
         tasks.cancelAll();
         this.inProgress = true;
         this.gameInstanceId = System.currentTimeMillis();
+        recorder.start(this.gameInstanceId);
         this.hasHandledWin = false;
 
         this.ticksInRound = settingsGUI.getRoundTimeTicks();
-        String baseWorldName = "blockshuffle_" + this.gameInstanceId;
-        currentGameWorld = worldService.createLinkedWorlds(baseWorldName);
-        String materialPath = "materials";
-        this.materials = this.settings.getStringList(materialPath).stream().map(Material::getMaterial).collect(Collectors.toList());
+        currentGameWorld = gameWorld;
 
         long now = System.currentTimeMillis();
         int roundTimeMillis = ticksInRound * 50;
@@ -91,9 +89,10 @@ public class ContinuousBlockShuffle implements BSGameMode {
                 player.teleport(currentGameWorld.getSpawnLocation());
 
                 tracker.addInGame(uuid);
+                recorder.joined(uuid);
                 tracker.getPlayerRounds().put(uuid, 1);
                 tracker.getPlayerEndTime().put(uuid, now + roundTimeMillis);
-                assignNewBlockToPlayer(uuid, tracker, materials, random);
+                assignNewBlockToPlayer(uuid, tracker, blockSelector);
                 BossBar bossBar = Bukkit.createBossBar("", BarColor.BLUE, BarStyle.SOLID);
                 bossBar.addPlayer(player);
                 playerBossBars.put(uuid, bossBar);
@@ -113,6 +112,7 @@ public class ContinuousBlockShuffle implements BSGameMode {
     @Override
     public void resetGame() {
         BlockShuffle.logger.info("[Game State] Continuous game ended — setInProgress(false) from resetGame()");
+        recorder.finish(tracker.getPlayerRounds().values().stream().max(Integer::compareTo).orElse(0));
         inProgress = false;
         this.gameInstanceId = 0;
         this.hasHandledWin = false;
@@ -155,6 +155,7 @@ public class ContinuousBlockShuffle implements BSGameMode {
 
 
         tracker.clearAll();
+        blockSelector.reset();
         playerScoreboards.clear();
 
         // Restore offline spectators to the tracking (they'll be cleaned up when they rejoin)
@@ -173,27 +174,36 @@ public class ContinuousBlockShuffle implements BSGameMode {
     }
 
     @Override
-    public void playerStandingOnBlock(Player player) {
-        UUID uuid = player.getUniqueId();
+    public void playersStandingOnBlock(List<Player> players) {
         long now = System.currentTimeMillis();
-        long endTime = tracker.getPlayerEndTime().getOrDefault(uuid, now);
-        long timeLeft = Math.max(0, endTime - now);
         int roundTimeMillis = settingsGUI.getRoundTimeTicks() * 50;
-        int newRound = tracker.getPlayerRounds().getOrDefault(uuid, 1) + 1;
-        tracker.getPlayerRounds().put(uuid, newRound);
         long maxEndTime = now + MAX_TIME_MILLIS;
-        long newEndTime = now + roundTimeMillis + timeLeft;
-        tracker.getPlayerEndTime().put(uuid, Math.min(newEndTime, maxEndTime));
+        List<Player> finishers = new ArrayList<>(players.size());
+        List<Material> blocks = new ArrayList<>(players.size());
 
-        Material assignedBlock = tracker.getUserMaterialMap().get(uuid);
-        String blockName = formatMaterialName(assignedBlock);
-        Bukkit.broadcast(prefixedMessage(
-                Component.text(player.getName() + " ", NamedTextColor.WHITE)
-                        .append(Component.text("stood on their block. Their block was: ", NamedTextColor.GREEN))
-                        .append(Component.text(blockName, NamedTextColor.GREEN, TextDecoration.BOLD))));
-        player.playSound(player.getLocation(), Sound.ENTITY_EXPERIENCE_ORB_PICKUP, 1.0f, 1.0f);
-        tracker.getUserMaterialMap().remove(uuid);
-        assignNewBlockToPlayer(uuid, tracker, materials, random);
+        for (Player player : players) {
+            UUID uuid = player.getUniqueId();
+            Material assignedBlock = tracker.getUserMaterialMap().remove(uuid);
+            if (assignedBlock == null) continue;
+            recorder.found(uuid, assignedBlock);
+
+            long endTime = tracker.getPlayerEndTime().getOrDefault(uuid, now);
+            long timeLeft = Math.max(0, endTime - now);
+            int newRound = tracker.getPlayerRounds().getOrDefault(uuid, 1) + 1;
+            tracker.getPlayerRounds().put(uuid, newRound);
+            long newEndTime = now + roundTimeMillis + timeLeft;
+            tracker.getPlayerEndTime().put(uuid, Math.min(newEndTime, maxEndTime));
+
+            player.playSound(player.getLocation(), Sound.ENTITY_EXPERIENCE_ORB_PICKUP, 1.0f, 1.0f);
+            finishers.add(player);
+            blocks.add(assignedBlock);
+        }
+        if (finishers.isEmpty()) return;
+
+        announceCompletions(finishers, blocks);
+        for (Player player : finishers) {
+            assignNewBlockToPlayer(player.getUniqueId(), tracker, blockSelector);
+        }
     }
 
     @Override
@@ -283,6 +293,8 @@ public class ContinuousBlockShuffle implements BSGameMode {
             strikeLightningWithoutFire(player.getLocation());
             boolean hasItems = dropItemsInChest(player);
             announceElimination(uuid, tracker, player.getLocation(), hasItems);
+            recorder.eliminated(uuid);
+            blockSelector.forget(uuid);
 
             // Remove boss bar
             BossBar bossBar = playerBossBars.remove(uuid);
@@ -297,6 +309,7 @@ public class ContinuousBlockShuffle implements BSGameMode {
             if (!hasHandledWin && tracker.getUsersInGame().size() == 1) {
                 hasHandledWin = true;
                 UUID winner = tracker.getUsersInGame().iterator().next();
+                recorder.won(winner);
                 Player winnerPlayer = Bukkit.getPlayer(winner);
                 if (winnerPlayer != null) {
                     Bukkit.broadcast(prefixedMessage(
@@ -339,7 +352,7 @@ public class ContinuousBlockShuffle implements BSGameMode {
         if (player == null) return false;
 
         Material oldBlock = tracker.getUserMaterialMap().get(uuid);
-        Material newBlock = getRandomMaterial(materials, random);
+        Material newBlock = blockSelector.next(uuid);
         tracker.assignBlock(uuid, newBlock);
         tracker.addSkipped(uuid);
 
@@ -387,6 +400,8 @@ public class ContinuousBlockShuffle implements BSGameMode {
 
             // Announce elimination (same as regular elimination)
             announceElimination(uuid, tracker, player.getLocation(), hasItems);
+            recorder.eliminated(uuid);
+            blockSelector.forget(uuid);
 
             // Remove from game tracking
             tracker.getUsersInGame().remove(uuid);
@@ -420,6 +435,7 @@ public class ContinuousBlockShuffle implements BSGameMode {
             if (!hasHandledWin && tracker.getUsersInGame().size() == 1) {
                 hasHandledWin = true;
                 UUID winner = tracker.getUsersInGame().iterator().next();
+                recorder.won(winner);
                 Player winnerPlayer = Bukkit.getPlayer(winner);
                 if (winnerPlayer != null) {
                     Bukkit.broadcast(prefixedMessage(
@@ -501,6 +517,8 @@ public class ContinuousBlockShuffle implements BSGameMode {
 
                     // Announce elimination with coordinates if items were dropped
                     announceElimination(uuid, tracker, player.getLocation(), hasItems);
+                    recorder.eliminated(uuid);
+                    blockSelector.forget(uuid);
 
                     tracker.addSpectator(uuid);
                     tracker.getSpectatorGameId().put(uuid, this.gameInstanceId);
@@ -510,6 +528,8 @@ public class ContinuousBlockShuffle implements BSGameMode {
                 } else {
                     // Player is offline - still announce elimination and track as spectator
                     announceElimination(uuid, tracker, null, false);
+                    recorder.eliminated(uuid);
+                    blockSelector.forget(uuid);
 
                     tracker.addSpectator(uuid);
                     tracker.getSpectatorGameId().put(uuid, this.gameInstanceId);
@@ -539,7 +559,7 @@ public class ContinuousBlockShuffle implements BSGameMode {
                                     .append(Component.text(blockName, NamedTextColor.RED, TextDecoration.BOLD))
                     ));
                 }
-                assignNewBlockToPlayer(uuid, tracker, materials, random);
+                assignNewBlockToPlayer(uuid, tracker, blockSelector);
             }
         }
 
@@ -547,6 +567,7 @@ public class ContinuousBlockShuffle implements BSGameMode {
             hasHandledWin = true;
 
             UUID winner = tracker.getUsersInGame().iterator().next();
+            recorder.won(winner);
             Player player = Bukkit.getPlayer(winner);
             if (player != null) {
                 Bukkit.broadcast(prefixedMessage(
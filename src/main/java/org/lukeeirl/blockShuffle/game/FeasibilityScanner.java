@@ -0,0 +1,264 @@
+package org.lukeeirl.blockShuffle.game;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+import org.lukeeirl.blockShuffle.BlockShuffle;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+/**
+ * Works out which blocks can actually be found near a fresh game world's spawn.
+ * Chunks around spawn are loaded asynchronously, snapshotted on the main thread as they arrive,
+ * then scanned in parallel on the common ForkJoin pool into a bitset of material ordinals.
+ * Anything that can be made from what was found also counts as reachable (see
+ * {@link RecipeGraph}), since it can be crafted or smelted rather than found. A game's nether
+ * doesn't exist until someone walks through a portal, so nether blocks are learned from the
+ * first nether that gets created (see {@link #learnNether}) and assumed for every game after it. What has been learned is kept in nether-blocks.txt (one
+ * material name per line, so it survives ordinals shifting between versions) and read back on
+ * startup, so the filter keeps working across restarts. Until a nether has been scanned, a
+ * bundled list of the blocks that generate there is used instead.
+ */
+public class FeasibilityScanner {
+    // Chunks per leaf task; a chunk is a few thousand section reads so this keeps tasks chunky
+    private static final int CHUNKS_PER_TASK = 4;
+
+    private final Plugin plugin;
+    private final int radiusChunks;
+    private final Path netherFile;
+    private RecipeGraph recipes;
+    private BitSet netherFound;
+
+    public FeasibilityScanner(Plugin plugin, int radiusChunks) {
+        this.plugin = plugin;
+        this.radiusChunks = Math.max(0, radiusChunks);
+        this.netherFile = plugin.getDataFolder().toPath().resolve("nether-blocks.txt");
+        loadNether();
+    }
+
+    /**
+     * Reads what earlier games learned about the nether, or the bundled list of nether blocks if
+     * nothing has been learned yet, so the filter works from the first game on.
+     */
+    private void loadNether() {
+        try {
+            List<String> lines;
+            if (Files.exists(netherFile)) {
+                lines = Files.readAllLines(netherFile);
+            } else {
+                InputStream bundled = plugin.getResource("nether-blocks.txt");
+                if (bundled == null) return;
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(bundled, StandardCharsets.UTF_8))) {
+                    lines = reader.lines().toList();
+                }
+            }
+
+            BitSet found = new BitSet(Material.values().length);
+            for (String line : lines) {
+                if (line.isBlank() || line.startsWith("#")) continue;
+                Material material = Material.getMaterial(line.trim());
+                if (material != null) {
+                    found.set(material.ordinal());
+                }
+            }
+            netherFound = found;
+            BlockShuffle.logger.info("[Feasibility] Loaded " + found.cardinality() + " known nether block types");
+        } catch (IOException | UncheckedIOException e) {
+            BlockShuffle.logger.warning("[Feasibility] Could not read nether-blocks.txt: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes what is known about the nether off the main thread, replacing the file in one move.
+     */
+    private void saveNether() {
+        Material[] values = Material.values();
+        List<String> names = new ArrayList<>(netherFound.cardinality());
+        for (int ordinal = netherFound.nextSetBit(0); ordinal >= 0; ordinal = netherFound.nextSetBit(ordinal + 1)) {
+            names.add(values[ordinal].name());
+        }
+        CompletableFuture.runAsync(() -> {
+            try {
+                Path temp = netherFile.resolveSibling("nether-blocks.txt.tmp");
+                Files.write(temp, names);
+                Files.move(temp, netherFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                BlockShuffle.logger.warning("[Feasibility] Could not save nether-blocks.txt: " + e.getMessage());
+            }
+        });
+    }
+
+    public boolean isEnabled() {
+        return radiusChunks > 0;
+    }
+
+    /**
+     * Scans around spawn of the overworld, adding whatever has been learned about the nether.
+     * The callback runs on the main thread once the scan is done. It gets null, meaning "don't
+     * restrict", if the scan fails or nothing is known about the nether (restricting then would
+     * rule out every nether block).
+     *
+     * @param overworld Game overworld, as returned by {@link WorldService#leaseLinkedWorlds}
+     * @param onComplete Receives every material that was found or can be crafted
+     */
+    public void scan(World overworld, Consumer<Set<Material>> onComplete) {
+        if (!isEnabled() || overworld == null) {
+            onComplete.accept(null);
+            return;
+        }
+        if (netherFound == null) {
+            BlockShuffle.logger.info("[Feasibility] Nothing known about the nether, not restricting blocks for " + overworld.getName());
+            onComplete.accept(null);
+            return;
+        }
+
+        if (recipes == null) {
+            recipes = RecipeGraph.load();
+        }
+
+        scanWorld(overworld, found -> {
+            if (found == null) {
+                onComplete.accept(null);
+                return;
+            }
+            found.or(netherFound);
+            Set<Material> blocks = EnumSet.noneOf(Material.class);
+            Material[] values = Material.values();
+            for (int ordinal = found.nextSetBit(0); ordinal >= 0; ordinal = found.nextSetBit(ordinal + 1)) {
+                blocks.add(values[ordinal]);
+            }
+            Set<Material> reachable = recipes.obtainable(blocks);
+            onComplete.accept(reachable);
+        });
+    }
+
+    /**
+     * Scans around spawn of a freshly created game nether and remembers what it found for later
+     * games, saving it if anything new turned up.
+     */
+    public void learnNether(World nether) {
+        if (!isEnabled() || nether.getEnvironment() != World.Environment.NETHER) return;
+        scanWorld(nether, found -> {
+            if (found == null) return;
+            if (netherFound == null) {
+                netherFound = found;
+            } else {
+                BitSet added = (BitSet) found.clone();
+                added.andNot(netherFound);
+                if (added.isEmpty()) return;
+                netherFound.or(added);
+            }
+            saveNether();
+        });
+    }
+
+    /**
+     * @param onComplete Runs on the main thread with the ordinals found, or null if the scan failed
+     */
+    private void scanWorld(World world, Consumer<BitSet> onComplete) {
+        long startNanos = System.nanoTime();
+        List<CompletableFuture<ChunkSnapshot>> snapshots = new ArrayList<>();
+        int centerX = world.getSpawnLocation().getBlockX() >> 4;
+        int centerZ = world.getSpawnLocation().getBlockZ() >> 4;
+        for (int chunkX = centerX - radiusChunks; chunkX <= centerX + radiusChunks; chunkX++) {
+            for (int chunkZ = centerZ - radiusChunks; chunkZ <= centerZ + radiusChunks; chunkZ++) {
+                // Paper completes these on the main thread, which is where snapshots have to be taken
+                snapshots.add(world.getChunkAtAsync(chunkX, chunkZ)
+                        .thenApply(chunk -> chunk.getChunkSnapshot(false, false, false)));
+            }
+        }
+
+        CompletableFuture.allOf(snapshots.toArray(new CompletableFuture[0]))
+                .thenApplyAsync(ignored -> {
+                    List<ChunkSnapshot> chunks = new ArrayList<>(snapshots.size());
+                    for (CompletableFuture<ChunkSnapshot> snapshot : snapshots) {
+                        chunks.add(snapshot.join());
+                    }
+                    return ForkJoinPool.commonPool().invoke(new SnapshotScan(chunks, 0, chunks.size(), world));
+                }, ForkJoinPool.commonPool())
+                .whenComplete((found, error) -> {
+                    if (!plugin.isEnabled()) return;
+                    Bukkit.getScheduler().runTask(plugin, () -> {
+                        long millis = (System.nanoTime() - startNanos) / 1_000_000;
+                        if (error != null) {
+                            BlockShuffle.logger.warning("[Feasibility] Scan of " + world.getName() + " failed after " + millis + "ms: " + error.getMessage());
+                            onComplete.accept(null);
+                            return;
+                        }
+
+                        BlockShuffle.logger.info("[Feasibility] Scanned " + snapshots.size() + " chunks around " + world.getName()
+                                + " in " + millis + "ms, found " + found.cardinality() + " block types");
+                        onComplete.accept(found);
+                    });
+                });
+    }
+
+    /**
+     * Splits the snapshot list in half until it is small enough to scan directly, OR-ing the results.
+     */
+    private static final class SnapshotScan extends RecursiveTask<BitSet> {
+        private final List<ChunkSnapshot> chunks;
+        private final int from;
+        private final int to;
+        private final World world;
+
+        private SnapshotScan(List<ChunkSnapshot> chunks, int from, int to, World world) {
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+            this.world = world;
+        }
+
+        @Override
+        protected BitSet compute() {
+            if (to - from <= CHUNKS_PER_TASK) {
+                BitSet found = new BitSet(Material.values().length);
+                for (int i = from; i < to; i++) {
+                    scanChunk(chunks.get(i), found);
+                }
+                return found;
+            }
+
+            int middle = (from + to) >>> 1;
+            SnapshotScan left = new SnapshotScan(chunks, from, middle, world);
+            left.fork();
+            BitSet found = new SnapshotScan(chunks, middle, to, world).compute();
+            found.or(left.join());
+            return found;
+        }
+
+        private void scanChunk(ChunkSnapshot chunk, BitSet found) {
+            int minHeight = world.getMinHeight();
+            int maxHeight = world.getMaxHeight();
+            for (int sectionY = minHeight; sectionY < maxHeight; sectionY += 16) {
+                if (chunk.isSectionEmpty((sectionY - minHeight) >> 4)) continue;
+                for (int y = sectionY; y < sectionY + 16; y++) {
+                    for (int x = 0; x < 16; x++) {
+                        for (int z = 0; z < 16; z++) {
+                            found.set(chunk.getBlockType(x, y, z).ordinal());
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
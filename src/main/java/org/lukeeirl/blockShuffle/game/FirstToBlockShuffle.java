@@ -8,7 +8,6 @@ import org.bukkit.*;
 import org.bukkit.boss.BarColor;
 import org.bukkit.boss.BarStyle;
 import org.bukkit.boss.BossBar;
-import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.scoreboard.Scoreboard;
 import org.lukeeirl.blockShuffle.BlockShuffle;
@@ -18,7 +17,6 @@ import org.lukeeirl.blockShuffle.util.StatsManager;
 import org.lukeeirl.blockShuffle.util.TaskRegistry;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static org.lukeeirl.blockShuffle.util.PlayerUtils.*;
 import static org.lukeeirl.blockShuffle.util.BlockShuffleUtils.*;
@@ -27,7 +25,8 @@ public class FirstToBlockShuffle implements BSGameMode {
 
     private final PlayerTracker tracker;
     private final BlockShuffle plugin;
-    private final YamlConfiguration settings;
+    private final BlockSelector blockSelector;
+    private final GameRecorder recorder;
     private final SettingsGUI settingsGUI;
     private final WorldService worldService;
     private final CreeperManager creeperManager;
@@ -35,7 +34,6 @@ public class FirstToBlockShuffle implements BSGameMode {
     private final World lobbyWorld;
     private final Random random;
 
-    private List<Material> materials;
     private World currentGameWorld;
     private boolean inProgress;
     private long gameInstanceId;
@@ -54,7 +52,8 @@ public class FirstToBlockShuffle implements BSGameMode {
     public FirstToBlockShuffle(
             PlayerTracker tracker,
             BlockShuffle plugin,
-            YamlConfiguration settings,
+            BlockSelector blockSelector,
+            GameRecorder recorder,
             SettingsGUI settingsGUI,
             WorldService worldService,
             World lobbyWorld,
@@ -63,7 +62,8 @@ public class FirstToBlockShuffle implements BSGameMode {
     ) {
         this.tracker = tracker;
         this.plugin = plugin;
-        this.settings = settings;
+        this.blockSelector = blockSelector;
+        this.recorder = recorder;
         this.settingsGUI = settingsGUI;
         this.worldService = worldService;
         this.lobbyWorld = lobbyWorld;
@@ -73,20 +73,18 @@ public class FirstToBlockShuffle implements BSGameMode {
     }
 
     @Override
-    public void startGame() {
+    public void startGame(World gameWorld) {
         // Initialize game settings
         BlockShuffle.logger.info("[Game State] FirstTo game started — setInProgress(true) from startGame()");
         tasks.cancelAll();
         this.inProgress = true;
         this.gameInstanceId = System.currentTimeMillis();
+        recorder.start(this.gameInstanceId);
         this.hasHandledWin = false;
         this.gameStartTime = System.currentTimeMillis();
         this.blocksToWin = settingsGUI.getBlocksToWin();
 
-        String baseWorldName = "blockshuffle_" + this.gameInstanceId;
-        currentGameWorld = worldService.createLinkedWorlds(baseWorldName);
-        String materialPath = "materials";
-        this.materials = this.settings.getStringList(materialPath).stream().map(Material::getMaterial).collect(Collectors.toList());
+        currentGameWorld = gameWorld;
 
         for (UUID uuid : tracker.getReadyPlayers()) {
             Player player = Bukkit.getPlayer(uuid);
@@ -95,15 +93,15 @@ public class FirstToBlockShuffle implements BSGameMode {
                 player.teleport(currentGameWorld.getSpawnLocation());
 
                 tracker.addInGame(uuid);
+                recorder.joined(uuid);
                 tracker.getPlayerRounds().put(uuid, 0); // Start at 0 blocks completed
-                assignNewBlockToPlayer(uuid, tracker, materials, random);
+                assignNewBlockToPlayer(uuid, tracker, blockSelector);
                 blockAssignmentTime.put(uuid, System.currentTimeMillis()); // Track when block was assigned
 
                 // Record stats
                 stats.recordPlayed(uuid);
             }
         }
-        stats.saveAll();
 
         // Create single shared boss bar
         this.sharedBossBar = Bukkit.createBossBar("Time: 0 sec", BarColor.BLUE, BarStyle.SOLID);
@@ -129,6 +127,7 @@ public class FirstToBlockShuffle implements BSGameMode {
     @Override
     public void resetGame() {
         BlockShuffle.logger.info("[Game State] FirstTo game ended — setInProgress(false) from resetGame()");
+        recorder.finish(tracker.getPlayerRounds().values().stream().max(Integer::compareTo).orElse(0));
         inProgress = false;
         this.gameInstanceId = 0;
         this.hasHandledWin = false;
@@ -171,6 +170,7 @@ public class FirstToBlockShuffle implements BSGameMode {
         }
 
         tracker.clearAll();
+        blockSelector.reset();
         playerScoreboards.clear();
         blockAssignmentTime.clear();
         hasReceivedBlockReminder.clear();
@@ -189,37 +189,72 @@ public class FirstToBlockShuffle implements BSGameMode {
     }
 
     @Override
-    public void playerStandingOnBlock(Player player) {
-        UUID uuid = player.getUniqueId();
-
-        // Increment blocks completed
-        int blocksCompleted = tracker.getPlayerRounds().getOrDefault(uuid, 0) + 1;
-        tracker.getPlayerRounds().put(uuid, blocksCompleted);
-
-        // Announce progress
-        Material assignedBlock = tracker.getUserMaterialMap().get(uuid);
-        String blockName = formatMaterialName(assignedBlock);
-        Bukkit.broadcast(prefixedMessage(
-                Component.text(player.getName() + " ", NamedTextColor.WHITE)
-                        .append(Component.text("stood on their block (", NamedTextColor.GREEN))
-                        .append(Component.text(blocksCompleted + "/" + blocksToWin, NamedTextColor.GREEN, TextDecoration.BOLD))
-                        .append(Component.text("). Block was: ", NamedTextColor.GREEN))
-                        .append(Component.text(blockName, NamedTextColor.GREEN, TextDecoration.BOLD))));
+    public void playersStandingOnBlock(List<Player> players) {
+        List<Player> finishers = new ArrayList<>(players.size());
+        List<Material> blocks = new ArrayList<>(players.size());
+        List<UUID> completed = new ArrayList<>(players.size());
+        Component progress = Component.empty();
+        UUID winner = null;
+
+        for (Player player : players) {
+            UUID uuid = player.getUniqueId();
+            Material assignedBlock = tracker.getUserMaterialMap().remove(uuid);
+            if (assignedBlock == null) continue;
+            recorder.found(uuid, assignedBlock);
+
+            // Increment blocks completed
+            int blocksCompleted = tracker.getPlayerRounds().getOrDefault(uuid, 0) + 1;
+            tracker.getPlayerRounds().put(uuid, blocksCompleted);
+            if (winner == null && blocksCompleted >= blocksToWin) {
+                winner = uuid;
+            }
 
-        // Play sound and remove old block
-        player.playSound(player.getLocation(), Sound.ENTITY_EXPERIENCE_ORB_PICKUP, 1.0f, 1.0f);
-        tracker.getUserMaterialMap().remove(uuid);
+            if (!finishers.isEmpty()) {
+                progress = progress.append(Component.text(", ", NamedTextColor.GRAY));
+            }
+            progress = progress.append(Component.text(player.getName() + " ", NamedTextColor.WHITE))
+                    .append(Component.text("(", NamedTextColor.GREEN))
+                    .append(Component.text(blocksCompleted + "/" + blocksToWin, NamedTextColor.GREEN, TextDecoration.BOLD))
+                    .append(Component.text(") ", NamedTextColor.GREEN))
+                    .append(Component.text(formatMaterialName(assignedBlock), NamedTextColor.GREEN, TextDecoration.BOLD));
+
+            player.playSound(player.getLocation(), Sound.ENTITY_EXPERIENCE_ORB_PICKUP, 1.0f, 1.0f);
+            finishers.add(player);
+            blocks.add(assignedBlock);
+            completed.add(uuid);
+        }
+        if (completed.isEmpty()) return;
+
+        // Announce progress, one line for everyone who finished this tick
+        if (finishers.size() == 1) {
+            Player player = finishers.getFirst();
+            int blocksCompleted = tracker.getPlayerRounds().getOrDefault(player.getUniqueId(), 0);
+            String blockName = formatMaterialName(blocks.getFirst());
+            Bukkit.broadcast(prefixedMessage(
+                    Component.text(player.getName() + " ", NamedTextColor.WHITE)
+                            .append(Component.text("stood on their block (", NamedTextColor.GREEN))
+                            .append(Component.text(blocksCompleted + "/" + blocksToWin, NamedTextColor.GREEN, TextDecoration.BOLD))
+                            .append(Component.text("). Block was: ", NamedTextColor.GREEN))
+                            .append(Component.text(blockName, NamedTextColor.GREEN, TextDecoration.BOLD))));
+        } else {
+            Bukkit.broadcast(prefixedMessage(
+                    Component.text(finishers.size() + " players stood on their blocks: ", NamedTextColor.GREEN)
+                            .append(progress)));
+        }
 
-        // Record stat
-        stats.recordBlockSteppedOn(uuid);
-        stats.save(uuid);
+        // Record stats for the whole batch in one write
+        stats.recordBlocksSteppedOn(completed);
 
         // Check win condition
-        if (blocksCompleted >= blocksToWin) {
-            handleWin(uuid);
-        } else {
-            assignNewBlockToPlayer(uuid, tracker, materials, random);
-            blockAssignmentTime.put(uuid, System.currentTimeMillis()); // Reset timer for new block
+        if (winner != null) {
+            handleWin(winner);
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        for (UUID uuid : completed) {
+            assignNewBlockToPlayer(uuid, tracker, blockSelector);
+            blockAssignmentTime.put(uuid, now); // Reset timer for new block
             hasReceivedBlockReminder.remove(uuid); // Reset reminder flag
         }
     }
@@ -257,11 +292,12 @@ public class FirstToBlockShuffle implements BSGameMode {
 
         // Record win stat
         stats.recordWin(winnerUuid);
-        stats.save(winnerUuid);
+        recorder.won(winnerUuid);
 
         // Eliminate all other players (without item chests since everyone loses at once)
         for (UUID uuid : new HashSet<>(tracker.getUsersInGame())) {
             if (!uuid.equals(winnerUuid)) {
+                recorder.eliminated(uuid);
                 Player loser = Bukkit.getPlayer(uuid);
                 if (loser != null) {
                     // Clear inventory instead of dropping in chest
@@ -409,6 +445,8 @@ public class FirstToBlockShuffle implements BSGameMode {
             strikeLightningWithoutFire(player.getLocation());
             boolean hasItems = dropItemsInChest(player);
             announceElimination(uuid, tracker, player.getLocation(), hasItems);
+            recorder.eliminated(uuid);
+            blockSelector.forget(uuid);
 
             // Remove from scoreboard tracking
             playerScoreboards.remove(uuid);
@@ -417,6 +455,7 @@ public class FirstToBlockShuffle implements BSGameMode {
             if (!hasHandledWin && tracker.getUsersInGame().size() == 1) {
                 hasHandledWin = true;
                 UUID winner = tracker.getUsersInGame().iterator().next();
+                recorder.won(winner);
                 Player winnerPlayer = Bukkit.getPlayer(winner);
                 if (winnerPlayer != null) {
                     Bukkit.broadcast(prefixedMessage(
@@ -459,7 +498,7 @@ public class FirstToBlockShuffle implements BSGameMode {
         if (player == null) return false;
 
         Material oldBlock = tracker.getUserMaterialMap().get(uuid);
-        Material newBlock = getRandomMaterial(materials, random);
+        Material newBlock = blockSelector.next(uuid);
         tracker.assignBlock(uuid, newBlock);
         tracker.addSkipped(uuid);
 
@@ -507,6 +546,8 @@ public class FirstToBlockShuffle implements BSGameMode {
 
             // Announce elimination (same as regular elimination)
             announceElimination(uuid, tracker, player.getLocation(), hasItems);
+            recorder.eliminated(uuid);
+            blockSelector.forget(uuid);
 
             // Remove from game tracking
             tracker.getUsersInGame().remove(uuid);
@@ -537,6 +578,7 @@ public class FirstToBlockShuffle implements BSGameMode {
             if (!hasHandledWin && tracker.getUsersInGame().size() == 1) {
                 hasHandledWin = true;
                 UUID winner = tracker.getUsersInGame().iterator().next();
+                recorder.won(winner);
                 Player winnerPlayer = Bukkit.getPlayer(winner);
                 if (winnerPlayer != null) {
                     Bukkit.broadcast(prefixedMessage(
@@ -687,7 +729,7 @@ public class FirstToBlockShuffle implements BSGameMode {
         if (player == null) return false;
 
         Material oldBlock = tracker.getUserMaterialMap().get(uuid);
-        Material newBlock = getRandomMaterial(materials, random);
+        Material newBlock = blockSelector.next(uuid);
         tracker.assignBlock(uuid, newBlock);
 
         String oldBlockName = formatMaterialName(oldBlock);
@@ -8,10 +8,14 @@ import org.bukkit.entity.Player;
 import org.lukeeirl.blockShuffle.BlockShuffle;
 import org.lukeeirl.blockShuffle.ui.SettingsGUI;
 import org.lukeeirl.blockShuffle.util.CreeperManager;
+import org.lukeeirl.blockShuffle.util.GameHistoryStore;
+import org.lukeeirl.blockShuffle.util.MaterialPool;
 import org.lukeeirl.blockShuffle.util.SkipManager;
 import org.lukeeirl.blockShuffle.util.StatsManager;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 import static org.lukeeirl.blockShuffle.util.PlayerUtils.prefixedMessage;
 
@@ -24,16 +28,39 @@ public class GameManager {
     private final FirstToBlockShuffle firstToMode;
 
     private BSGameMode activeMode;
-
-    public GameManager(PlayerTracker tracker, BlockShuffle plugin, YamlConfiguration settings, SettingsGUI settingsGUI, SkipManager skipManager, StatsManager stats, CreeperManager creeperManager) {
+    private final WorldService worldService;
+    private final SpawnPregenerator spawnPregenerator;
+    // Leased world whose spawn area is being generated before the game starts
+    private World preparingWorld;
+    // Started with an empty world pool; waiting on the next world to be made
+    private boolean waitingForWorld;
+    private final Map<BSGameMode, BlockSelector> selectors = new HashMap<>();
+
+    public GameManager(PlayerTracker tracker, BlockShuffle plugin, YamlConfiguration settings, SettingsGUI settingsGUI, SkipManager skipManager, StatsManager stats, CreeperManager creeperManager, MaterialPool materialPool, ChunkMaterialIndex chunkMaterialIndex, GameHistoryStore historyStore) {
         this.settingsGUI = settingsGUI;
         this.tracker = tracker;
-        WorldService worldService = new WorldService();
+        this.worldService = new WorldService(plugin, chunkMaterialIndex, settings.getInt("worldPoolSize", 1), settings.getInt("worldPoolMaxAgeMinutes", 0));
         this.lobbyWorld = Bukkit.getWorlds().getFirst();
-
-        this.classicMode = new ClassicBlockShuffle(tracker, plugin, settings, settingsGUI, worldService, lobbyWorld, skipManager, stats, creeperManager);
-        this.continuousMode = new ContinuousBlockShuffle(tracker, plugin, settings, settingsGUI, worldService, lobbyWorld, creeperManager);
-        this.firstToMode = new FirstToBlockShuffle(tracker, plugin, settings, settingsGUI, worldService, lobbyWorld, creeperManager, stats);
+        this.spawnPregenerator = new SpawnPregenerator(plugin, settings.getInt("spawnPregenRadiusChunks", 8),
+                settings.getInt("spawnPregenMaxInFlight", 16), settings.getInt("spawnPregenTimeoutSeconds", 30));
+
+        String noRepeat = settings.getString("noRepeat", "game");
+        FeasibilityScanner feasibilityScanner = new FeasibilityScanner(plugin, settings.getInt("feasibilityRadiusChunks", 6));
+        worldService.onDimensionCreated(feasibilityScanner::learnNether);
+
+        GameRecorder classicRecorder = new GameRecorder("Classic", historyStore, stats);
+        GameRecorder continuousRecorder = new GameRecorder("Continuous", historyStore, stats);
+        GameRecorder firstToRecorder = new GameRecorder("FirstTo", historyStore, stats);
+
+        BlockSelector classicSelector = newSelector(materialPool, feasibilityScanner, noRepeat, classicRecorder);
+        BlockSelector continuousSelector = newSelector(materialPool, feasibilityScanner, noRepeat, continuousRecorder);
+        BlockSelector firstToSelector = newSelector(materialPool, feasibilityScanner, noRepeat, firstToRecorder);
+        this.classicMode = new ClassicBlockShuffle(tracker, plugin, classicSelector, classicRecorder, settingsGUI, worldService, lobbyWorld, skipManager, stats, creeperManager);
+        this.continuousMode = new ContinuousBlockShuffle(tracker, plugin, continuousSelector, continuousRecorder, settingsGUI, worldService, lobbyWorld, creeperManager);
+        this.firstToMode = new FirstToBlockShuffle(tracker, plugin, firstToSelector, firstToRecorder, settingsGUI, worldService, lobbyWorld, creeperManager, stats);
+        selectors.put(classicMode, classicSelector);
+        selectors.put(continuousMode, continuousSelector);
+        selectors.put(firstToMode, firstToSelector);
 
         if (settingsGUI.isContinuousMode()) {
             this.activeMode = continuousMode;
@@ -42,6 +69,57 @@ public class GameManager {
         } else {
             this.activeMode = classicMode;
         }
+
+        worldService.startPool(() -> isInProgress() || isPreparing());
+    }
+
+    public WorldService.PoolStatus getWorldPoolStatus() {
+        return worldService.poolStatus();
+    }
+
+    /**
+     * Builds world templates between games; see {@link WorldService#buildTemplates}.
+     */
+    public boolean buildWorldTemplates(int count, IntConsumer onBuilt, IntConsumer onDone) {
+        return worldService.buildTemplates(count, onBuilt, onDone);
+    }
+
+    /**
+     * Creates the current game's nether or end if nobody has needed it yet.
+     *
+     * @param onReady Runs on the main thread with the dimension, or with null if it couldn't be
+     *                created or the game ended first
+     */
+    public void requestDimension(World.Environment environment, Consumer<World> onReady) {
+        World currentGameWorld = getCurrentGameWorld();
+        if (currentGameWorld != null) {
+            worldService.requestDimension(currentGameWorld, environment, onReady);
+        } else {
+            onReady.accept(null);
+        }
+    }
+
+    /**
+     * Stops spawn pregeneration and deletes any pre-generated worlds nobody is playing in. Call from onDisable.
+     */
+    public void shutdown() {
+        spawnPregenerator.cancel();
+        worldService.shutdown();
+    }
+
+    private static BlockSelector newSelector(MaterialPool materialPool, FeasibilityScanner feasibilityScanner, String noRepeat, GameRecorder recorder) {
+        BlockSelector selector = new BlockSelector(materialPool, feasibilityScanner, noRepeat);
+        selector.onDraw(recorder::assigned);
+        return selector;
+    }
+
+    /**
+     * Drops per-player block selection state for someone who left the server.
+     */
+    public void forgetPlayer(UUID uuid) {
+        for (BlockSelector selector : selectors.values()) {
+            selector.forget(uuid);
+        }
     }
 
     public void startGame() {
@@ -52,18 +130,55 @@ public class GameManager {
         } else {
             this.activeMode = classicMode;
         }
-        activeMode.startGame();
+
+        this.waitingForWorld = true;
+        boolean ready = worldService.leaseLinkedWorlds(gameWorld -> {
+            this.waitingForWorld = false;
+            // Players wait in the lobby while the area around spawn is generated and scanned, so
+            // the very first blocks handed out are already ones that can be found
+            this.preparingWorld = gameWorld;
+            int[] outstanding = {2};
+            Runnable stepDone = () -> {
+                if (--outstanding[0] > 0 || preparingWorld != gameWorld) return;
+                this.preparingWorld = null;
+                activeMode.startGame(gameWorld);
+            };
+            selectors.get(activeMode).restrictToReachable(gameWorld, stepDone);
+            spawnPregenerator.start(gameWorld, stepDone);
+        });
+        if (!ready) {
+            Bukkit.broadcast(prefixedMessage(Component.text("The game is starting shortly, its world is still being made", NamedTextColor.YELLOW)));
+        }
+    }
+
+    /**
+     * @return Whether a game has been started but players are still waiting on its world
+     */
+    public boolean isPreparing() {
+        return waitingForWorld || preparingWorld != null;
     }
 
     public void resetGame() {
+        if (waitingForWorld) {
+            worldService.cancelLease();
+            waitingForWorld = false;
+            return;
+        }
+        if (preparingWorld != null) {
+            spawnPregenerator.cancel();
+            selectors.get(activeMode).reset();
+            worldService.deleteWorld(preparingWorld);
+            preparingWorld = null;
+            return;
+        }
         if (activeMode != null) {
             activeMode.resetGame();
         }
     }
 
-    public void playerStandingOnBlock(Player player) {
+    public void playersStandingOnBlock(List<Player> players) {
         if (activeMode != null) {
-            activeMode.playerStandingOnBlock(player);
+            activeMode.playersStandingOnBlock(players);
         }
     }
 
@@ -0,0 +1,117 @@
+package org.lukeeirl.blockShuffle.game;
+
+import org.bukkit.Material;
+import org.lukeeirl.blockShuffle.util.GameHistoryStore;
+import org.lukeeirl.blockShuffle.util.GameRecord;
+import org.lukeeirl.blockShuffle.util.StatsManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Collects what happens during one game of a mode and, when the game is reset, hands the
+ * finished record to the {@link GameHistoryStore} and to {@link StatsManager} for rating. Main thread only.
+ */
+public class GameRecorder {
+    private final String mode;
+    private final GameHistoryStore historyStore;
+    private final StatsManager stats;
+
+    private long gameInstanceId;
+    private long startedAt;
+    private final Set<UUID> participants = new LinkedHashSet<>();
+    private final Set<UUID> winners = new LinkedHashSet<>();
+    private final Set<UUID> eliminated = new LinkedHashSet<>();
+    private final List<Assignment> assignments = new ArrayList<>();
+
+    private static final class Assignment {
+        private final UUID player;
+        private final Material material;
+        private boolean found;
+
+        private Assignment(UUID player, Material material) {
+            this.player = player;
+            this.material = material;
+        }
+    }
+
+    public GameRecorder(String mode, GameHistoryStore historyStore, StatsManager stats) {
+        this.mode = mode;
+        this.historyStore = historyStore;
+        this.stats = stats;
+    }
+
+    public void start(long gameInstanceId) {
+        clear();
+        this.gameInstanceId = gameInstanceId;
+        this.startedAt = System.currentTimeMillis();
+    }
+
+    public void joined(UUID player) {
+        participants.add(player);
+    }
+
+    public void assigned(UUID player, Material material) {
+        if (gameInstanceId == 0) return;
+        participants.add(player);
+        assignments.add(new Assignment(player, material));
+    }
+
+    public void found(UUID player, Material material) {
+        // The most recent matching assignment is the one they were working on
+        for (int i = assignments.size() - 1; i >= 0; i--) {
+            Assignment assignment = assignments.get(i);
+            if (assignment.player.equals(player) && assignment.material == material && !assignment.found) {
+                assignment.found = true;
+                return;
+            }
+        }
+    }
+
+    public void eliminated(UUID player) {
+        eliminated.add(player);
+    }
+
+    public void won(UUID player) {
+        winners.add(player);
+    }
+
+    /**
+     * Closes the game and queues it for writing. Does nothing if no game was started.
+     *
+     * @param rounds Rounds played, in whatever sense the mode has rounds
+     */
+    public void finish(int rounds) {
+        if (gameInstanceId == 0) return;
+
+        List<GameRecord.Assignment> recorded = new ArrayList<>(assignments.size());
+        for (Assignment assignment : assignments) {
+            recorded.add(new GameRecord.Assignment(assignment.player, assignment.material, assignment.found));
+        }
+        GameRecord record = new GameRecord(
+                gameInstanceId,
+                mode,
+                startedAt,
+                System.currentTimeMillis() - startedAt,
+                rounds,
+                List.copyOf(participants),
+                List.copyOf(winners),
+                List.copyOf(eliminated),
+                recorded
+        );
+        historyStore.append(record);
+        stats.recordRatings(record);
+        clear();
+    }
+
+    private void clear() {
+        gameInstanceId = 0;
+        participants.clear();
+        winners.clear();
+        eliminated.clear();
+        assignments.clear();
+    }
+}
@@ -0,0 +1,235 @@
+package org.lukeeirl.blockShuffle.game;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.inventory.CookingRecipe;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.Recipe;
+import org.bukkit.inventory.RecipeChoice;
+import org.bukkit.inventory.ShapedRecipe;
+import org.bukkit.inventory.ShapelessRecipe;
+import org.bukkit.inventory.SmithingTransformRecipe;
+import org.bukkit.inventory.StonecuttingRecipe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Works out everything that can be made from a set of blocks found in the world. The found
+ * blocks are first turned into the items they give (ores drop raw metal, stone drops
+ * cobblestone, leaves drop saplings, ...) plus what the mobs found everywhere drop, then every
+ * recipe whose ingredients are all obtainable is applied until nothing new turns up. A few
+ * in-world conversions that aren't recipes (stripping logs, copper aging, concrete powder
+ * hardening) are applied the same way. Crafting, smelting, stonecutting and smithing recipes
+ * are read from the server once; special recipes (fireworks, banners, ...) are ignored.
+ */
+final class RecipeGraph {
+    // What mining or breaking a found block gives when it isn't the block itself
+    private static final Map<Material, Material> DROPS = Map.ofEntries(
+            Map.entry(Material.STONE, Material.COBBLESTONE),
+            Map.entry(Material.DEEPSLATE, Material.COBBLED_DEEPSLATE),
+            Map.entry(Material.GRASS_BLOCK, Material.DIRT),
+            Map.entry(Material.SHORT_GRASS, Material.WHEAT_SEEDS),
+            Map.entry(Material.TALL_GRASS, Material.WHEAT_SEEDS),
+            Map.entry(Material.GRAVEL, Material.FLINT),
+            Map.entry(Material.CLAY, Material.CLAY_BALL),
+            Map.entry(Material.SNOW, Material.SNOWBALL),
+            Map.entry(Material.SNOW_BLOCK, Material.SNOWBALL),
+            Map.entry(Material.COBWEB, Material.STRING),
+            Map.entry(Material.MELON, Material.MELON_SLICE),
+            Map.entry(Material.CARROTS, Material.CARROT),
+            Map.entry(Material.POTATOES, Material.POTATO),
+            Map.entry(Material.BEETROOTS, Material.BEETROOT_SEEDS),
+            Map.entry(Material.COCOA, Material.COCOA_BEANS),
+            Map.entry(Material.SWEET_BERRY_BUSH, Material.SWEET_BERRIES),
+            Map.entry(Material.CAVE_VINES, Material.GLOW_BERRIES),
+            Map.entry(Material.KELP_PLANT, Material.KELP),
+            Map.entry(Material.BEE_NEST, Material.HONEYCOMB),
+            Map.entry(Material.AMETHYST_CLUSTER, Material.AMETHYST_SHARD),
+            Map.entry(Material.GLOWSTONE, Material.GLOWSTONE_DUST),
+            Map.entry(Material.WATER, Material.WATER_BUCKET),
+            Map.entry(Material.LAVA, Material.LAVA_BUCKET),
+            Map.entry(Material.COAL_ORE, Material.COAL),
+            Map.entry(Material.DEEPSLATE_COAL_ORE, Material.COAL),
+            Map.entry(Material.IRON_ORE, Material.RAW_IRON),
+            Map.entry(Material.DEEPSLATE_IRON_ORE, Material.RAW_IRON),
+            Map.entry(Material.COPPER_ORE, Material.RAW_COPPER),
+            Map.entry(Material.DEEPSLATE_COPPER_ORE, Material.RAW_COPPER),
+            Map.entry(Material.GOLD_ORE, Material.RAW_GOLD),
+            Map.entry(Material.DEEPSLATE_GOLD_ORE, Material.RAW_GOLD),
+            Map.entry(Material.NETHER_GOLD_ORE, Material.GOLD_NUGGET),
+            Map.entry(Material.DIAMOND_ORE, Material.DIAMOND),
+            Map.entry(Material.DEEPSLATE_DIAMOND_ORE, Material.DIAMOND),
+            Map.entry(Material.EMERALD_ORE, Material.EMERALD),
+            Map.entry(Material.DEEPSLATE_EMERALD_ORE, Material.EMERALD),
+            Map.entry(Material.LAPIS_ORE, Material.LAPIS_LAZULI),
+            Map.entry(Material.DEEPSLATE_LAPIS_ORE, Material.LAPIS_LAZULI),
+            Map.entry(Material.REDSTONE_ORE, Material.REDSTONE),
+            Map.entry(Material.DEEPSLATE_REDSTONE_ORE, Material.REDSTONE),
+            Map.entry(Material.NETHER_QUARTZ_ORE, Material.QUARTZ)
+    );
+
+    // Dropped by mobs that spawn in any overworld biome; ocean-only drops (prismarine, nautilus shells) are left out
+    private static final Set<Material> MOB_DROPS = EnumSet.of(
+            Material.ROTTEN_FLESH, Material.BONE, Material.ARROW, Material.STRING, Material.SPIDER_EYE,
+            Material.GUNPOWDER, Material.ENDER_PEARL, Material.SLIME_BALL, Material.INK_SAC,
+            Material.LEATHER, Material.BEEF, Material.PORKCHOP, Material.CHICKEN, Material.FEATHER,
+            Material.EGG, Material.MUTTON, Material.WHITE_WOOL
+    );
+
+    private record Inputs(Material result, List<Set<Material>> choices) {}
+
+    private final List<Inputs> recipes;
+
+    private RecipeGraph(List<Inputs> recipes) {
+        this.recipes = recipes;
+    }
+
+    /**
+     * Reads every recipe the server knows. Main thread only.
+     */
+    static RecipeGraph load() {
+        List<Inputs> recipes = new ArrayList<>();
+        Iterator<Recipe> iterator = Bukkit.recipeIterator();
+        while (iterator.hasNext()) {
+            Recipe recipe = iterator.next();
+            if (recipe == null || recipe.getResult().getType().isAir()) continue;
+            List<RecipeChoice> choices = switch (recipe) {
+                case ShapedRecipe shaped -> shaped.getChoiceMap().values().stream().filter(Objects::nonNull).toList();
+                case ShapelessRecipe shapeless -> shapeless.getChoiceList();
+                case CookingRecipe<?> cooking -> List.of(cooking.getInputChoice());
+                case StonecuttingRecipe stonecutting -> List.of(stonecutting.getInputChoice());
+                case SmithingTransformRecipe smithing -> Arrays.asList(smithing.getTemplate(), smithing.getBase(), smithing.getAddition());
+                default -> null;
+            };
+            if (choices == null) continue;
+
+            List<Set<Material>> materials = new ArrayList<>(choices.size());
+            for (RecipeChoice choice : choices) {
+                Set<Material> options = options(choice);
+                if (options == null) {
+                    materials = null;
+                    break;
+                }
+                if (!options.isEmpty()) {
+                    materials.add(options);
+                }
+            }
+            if (materials != null) {
+                recipes.add(new Inputs(recipe.getResult().getType(), materials));
+            }
+        }
+        return new RecipeGraph(recipes);
+    }
+
+    /**
+     * @return Materials a choice accepts, or null if it is a kind of choice this doesn't understand
+     */
+    private static Set<Material> options(RecipeChoice choice) {
+        Set<Material> options = EnumSet.noneOf(Material.class);
+        // An empty slot (e.g. a smithing recipe without a template) asks for nothing
+        if (choice == null || choice == RecipeChoice.empty()) return options;
+        switch (choice) {
+            case RecipeChoice.MaterialChoice materials -> options.addAll(materials.getChoices());
+            case RecipeChoice.ExactChoice exact -> {
+                for (ItemStack item : exact.getChoices()) {
+                    options.add(item.getType());
+                }
+            }
+            default -> {
+                return null;
+            }
+        }
+        return options;
+    }
+
+    /**
+     * @param found Blocks found in the world
+     * @return Everything obtainable from them, including the blocks themselves. Main thread only
+     */
+    Set<Material> obtainable(Set<Material> found) {
+        Set<Material> obtainable = EnumSet.copyOf(MOB_DROPS);
+        obtainable.addAll(found);
+        for (Material block : found) {
+            Material drop = DROPS.get(block);
+            if (drop != null) {
+                obtainable.add(drop);
+            }
+        }
+
+        boolean changed = true;
+        while (changed) {
+            changed = addConversions(obtainable);
+            for (Inputs recipe : recipes) {
+                if (obtainable.contains(recipe.result())) continue;
+                if (satisfied(recipe, obtainable)) {
+                    obtainable.add(recipe.result());
+                    changed = true;
+                }
+            }
+        }
+        return obtainable;
+    }
+
+    private static boolean satisfied(Inputs recipe, Set<Material> obtainable) {
+        for (Set<Material> choice : recipe.choices()) {
+            boolean any = false;
+            for (Material option : choice) {
+                if (obtainable.contains(option)) {
+                    any = true;
+                    break;
+                }
+            }
+            if (!any) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Adds what players can turn obtainable blocks into in the world without a recipe.
+     *
+     * @return Whether anything was added
+     */
+    private static boolean addConversions(Set<Material> obtainable) {
+        List<Material> added = new ArrayList<>();
+        for (Material material : obtainable) {
+            String name = material.name();
+            // Axe on a log or wood, leaves broken for saplings
+            add(added, "STRIPPED_" + name);
+            if (name.endsWith("_LEAVES")) {
+                add(added, name.replace("_LEAVES", "_SAPLING"));
+            }
+            // Concrete powder touching water
+            if (name.endsWith("_CONCRETE_POWDER")) {
+                add(added, name.replace("_POWDER", ""));
+            }
+            // Copper blocks age in place
+            if (name.contains("COPPER") && !name.startsWith("EXPOSED_") && !name.startsWith("WEATHERED_")
+                    && !name.startsWith("OXIDIZED_") && !name.startsWith("WAXED_") && !name.startsWith("RAW_")) {
+                String base = name.equals("COPPER_BLOCK") ? "COPPER" : name;
+                add(added, "EXPOSED_" + base);
+                add(added, "WEATHERED_" + base);
+                add(added, "OXIDIZED_" + base);
+            }
+        }
+        if (obtainable.contains(Material.DIRT)) {
+            added.add(Material.DIRT_PATH);
+            added.add(Material.FARMLAND);
+            added.add(Material.MUD);
+        }
+        return obtainable.addAll(added);
+    }
+
+    private static void add(List<Material> added, String name) {
+        Material material = Material.getMaterial(name);
+        if (material != null) {
+            added.add(material);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package org.lukeeirl.blockShuffle.game;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.boss.BarColor;
+import org.bukkit.boss.BarStyle;
+import org.bukkit.boss.BossBar;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.lukeeirl.blockShuffle.BlockShuffle;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Generates the chunks around a game world's spawn before anyone is sent there, so the first
+ * minute of a game isn't spent generating terrain under a full server. Chunks are requested
+ * through Paper's async chunk API nearest-first, with at most spawnPregenMaxInFlight outstanding
+ * at once so the generator threads aren't flooded. Progress is shown on a boss bar to everyone
+ * online; the game starts when the radius is done or spawnPregenTimeoutSeconds passes,
+ * whichever comes first. Generated chunks are saved with the world, so once players arrive
+ * they are loaded rather than generated.
+ */
+public class SpawnPregenerator {
+    private final Plugin plugin;
+    private final int radiusChunks;
+    private final int maxInFlight;
+    private final long timeoutTicks;
+
+    // Bumped on every start and cancel so late chunk callbacks from an old run are ignored
+    private int generation;
+    private List<int[]> queue;
+    private int nextIndex;
+    private int inFlight;
+    private int completed;
+    private long startNanos;
+    private BossBar progressBar;
+    private int timeoutTask = -1;
+    private Runnable onReady;
+
+    public SpawnPregenerator(Plugin plugin, int radiusChunks, int maxInFlight, int timeoutSeconds) {
+        this.plugin = plugin;
+        this.radiusChunks = Math.max(0, radiusChunks);
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.timeoutTicks = Math.max(1, timeoutSeconds) * 20L;
+    }
+
+    public boolean isRunning() {
+        return onReady != null;
+    }
+
+    /**
+     * Starts generating around the world's spawn.
+     *
+     * @param onReady Runs on the main thread once the radius is generated or the timeout hits;
+     *                not called if {@link #cancel()} is called first
+     */
+    public void start(World world, Runnable onReady) {
+        cancel();
+        if (radiusChunks == 0) {
+            onReady.run();
+            return;
+        }
+
+        int run = ++generation;
+        this.onReady = onReady;
+        this.queue = nearestFirst(world.getSpawnLocation().getBlockX() >> 4, world.getSpawnLocation().getBlockZ() >> 4);
+        this.nextIndex = 0;
+        this.inFlight = 0;
+        this.completed = 0;
+        this.startNanos = System.nanoTime();
+
+        this.progressBar = Bukkit.createBossBar("Preparing the world...", BarColor.GREEN, BarStyle.SEGMENTED_10);
+        progressBar.setProgress(0.0);
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            progressBar.addPlayer(player);
+        }
+
+        timeoutTask = Bukkit.getScheduler().runTaskLater(plugin, () -> {
+            timeoutTask = -1;
+            finish(run, world, true);
+        }, timeoutTicks).getTaskId();
+        fill(run, world);
+    }
+
+    /**
+     * Abandons the current run, if any, without calling its callback.
+     */
+    public void cancel() {
+        generation++;
+        onReady = null;
+        if (timeoutTask != -1) {
+            Bukkit.getScheduler().cancelTask(timeoutTask);
+            timeoutTask = -1;
+        }
+        if (progressBar != null) {
+            progressBar.removeAll();
+            progressBar = null;
+        }
+        queue = null;
+    }
+
+    private void fill(int run, World world) {
+        // Already loaded chunks complete immediately and may finish the run inside this loop
+        while (run == generation && inFlight < maxInFlight && nextIndex < queue.size()) {
+            int[] chunk = queue.get(nextIndex++);
+            inFlight++;
+            // Paper completes these on the main thread
+            world.getChunkAtAsync(chunk[0], chunk[1], true).whenComplete((loaded, error) -> {
+                if (run != generation) return;
+                inFlight--;
+                completed++;
+                if (error != null) {
+                    BlockShuffle.logger.warning("[Pregen] Chunk " + chunk[0] + ", " + chunk[1] + " failed: " + error.getMessage());
+                }
+                progressBar.setProgress(Math.min(1.0, (double) completed / queue.size()));
+                progressBar.setTitle("Preparing the world: " + (completed * 100 / queue.size()) + "%");
+
+                if (completed == queue.size()) {
+                    finish(run, world, false);
+                } else {
+                    fill(run, world);
+                }
+            });
+        }
+    }
+
+    private void finish(int run, World world, boolean timedOut) {
+        if (run != generation || onReady == null) return;
+        Runnable callback = onReady;
+        long millis = (System.nanoTime() - startNanos) / 1_000_000;
+        String summary = completed + "/" + queue.size() + " chunks around " + world.getName() + " in " + millis + "ms";
+        if (timedOut) {
+            BlockShuffle.logger.warning("[Pregen] Timed out after " + summary + ", starting anyway");
+        } else {
+            BlockShuffle.logger.info("[Pregen] Generated " + summary);
+        }
+        cancel();
+        callback.run();
+    }
+
+    /**
+     * @return Every chunk within the radius as {x, z}, ordered by distance from the centre
+     */
+    private List<int[]> nearestFirst(int centerX, int centerZ) {
+        List<int[]> chunks = new ArrayList<>((2 * radiusChunks + 1) * (2 * radiusChunks + 1));
+        for (int x = -radiusChunks; x <= radiusChunks; x++) {
+            for (int z = -radiusChunks; z <= radiusChunks; z++) {
+                chunks.add(new int[]{centerX + x, centerZ + z});
+            }
+        }
+        chunks.sort(Comparator.comparingLong(chunk -> {
+            long dx = chunk[0] - centerX;
+            long dz = chunk[1] - centerZ;
+            return dx * dx + dz * dz;
+        }));
+        return chunks;
+    }
+}
@@ -0,0 +1,128 @@
+package org.lukeeirl.blockShuffle.game;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.lukeeirl.blockShuffle.BlockShuffle;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * Finds the nearest block of a player's target that the {@link ChunkMaterialIndex} has seen.
+ * The search walks the index on the common ForkJoin pool; the main thread only checks the cache
+ * and delivers the answer. Results are cached per player until their target or world changes,
+ * or they move far enough that a different instance could be closer.
+ */
+public class TargetLocator {
+    // Moving this many blocks away from where a result was computed triggers a fresh search
+    private static final int RESEARCH_DISTANCE = 64;
+
+    private final Plugin plugin;
+    private final PlayerTracker tracker;
+    private final ChunkMaterialIndex chunkMaterialIndex;
+    private final Map<UUID, Hint> cache = new HashMap<>();
+    private final Set<UUID> searching = new HashSet<>();
+
+    /**
+     * Where a target was found, and where the player was when it was searched for.
+     */
+    public record Hint(Material target, World world, int x, int y, int z, int fromX, int fromZ) {
+        public Location location() {
+            return new Location(world, x + 0.5, y, z + 0.5);
+        }
+    }
+
+    public TargetLocator(Plugin plugin, PlayerTracker tracker, ChunkMaterialIndex chunkMaterialIndex) {
+        this.plugin = plugin;
+        this.tracker = tracker;
+        this.chunkMaterialIndex = chunkMaterialIndex;
+    }
+
+    /**
+     * Looks up the nearest known instance of the player's current target.
+     *
+     * @param player Player asking for a hint
+     * @param onResult Runs on the main thread with the hint, or null if none has been seen yet.
+     *                 Not called if the player's target changes while searching.
+     * @return false if the player has no target or a search for them is already running
+     */
+    public boolean locate(Player player, Consumer<Hint> onResult) {
+        UUID uuid = player.getUniqueId();
+        Material target = tracker.getUserMaterialMap().get(uuid);
+        if (target == null || searching.contains(uuid)) return false;
+
+        World world = player.getWorld();
+        int fromX = player.getLocation().getBlockX();
+        int fromZ = player.getLocation().getBlockZ();
+
+        Hint cached = cache.get(uuid);
+        if (cached != null) {
+            if (cached.target() == target && cached.world() == world
+                    && Math.abs(cached.fromX() - fromX) < RESEARCH_DISTANCE
+                    && Math.abs(cached.fromZ() - fromZ) < RESEARCH_DISTANCE) {
+                onResult.accept(cached);
+                return true;
+            }
+            cache.remove(uuid);
+        }
+
+        // Nothing to find, so skip the trip to the worker
+        if (!chunkMaterialIndex.hasSeen(world, target)) {
+            onResult.accept(null);
+            return true;
+        }
+
+        searching.add(uuid);
+        CompletableFuture.supplyAsync(() -> nearest(world, target, fromX, fromZ), ForkJoinPool.commonPool())
+                .whenComplete((hint, error) -> {
+                    if (!plugin.isEnabled()) return;
+                    Bukkit.getScheduler().runTask(plugin, () -> {
+                        searching.remove(uuid);
+                        if (error != null) {
+                            BlockShuffle.logger.warning("[Hint] Search for " + target + " failed: " + error.getMessage());
+                            return;
+                        }
+                        if (tracker.getUserMaterialMap().get(uuid) != target) return;
+                        if (hint != null) {
+                            cache.put(uuid, hint);
+                        }
+                        onResult.accept(hint);
+                    });
+                });
+        return true;
+    }
+
+    public void forget(UUID uuid) {
+        cache.remove(uuid);
+    }
+
+    private Hint nearest(World world, Material target, int fromX, int fromZ) {
+        Hint best = null;
+        long bestDistance = Long.MAX_VALUE;
+        for (ChunkMaterialIndex.ChunkEntry entry : chunkMaterialIndex.chunks(world)) {
+            int packed = entry.position(target);
+            if (packed == Integer.MIN_VALUE) continue;
+
+            int x = entry.blockX(packed);
+            int z = entry.blockZ(packed);
+            long dx = x - fromX;
+            long dz = z - fromZ;
+            long distance = dx * dx + dz * dz;
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = new Hint(target, world, x, ChunkMaterialIndex.ChunkEntry.blockY(packed), z, fromX, fromZ);
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,104 @@
+package org.lukeeirl.blockShuffle.game;
+
+import org.lukeeirl.blockShuffle.BlockShuffle;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes unloaded world folders on a background thread, so tearing down a game doesn't stall
+ * the server on hundreds of megabytes of region files. A folder that can't be fully removed
+ * (e.g. the server still has a region file open for a moment after unload) is retried with
+ * backoff; whatever still fails after that is left for the startup sweep.
+ */
+public class WorldDeletionQueue {
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long FIRST_RETRY_SECONDS = 2;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "BlockShuffle-world-deleter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Queues a folder for deletion. The world must already be unloaded.
+     */
+    public void delete(Path folder) {
+        executor.execute(() -> attempt(folder, 1));
+    }
+
+    /**
+     * Waits briefly for queued deletions to finish. Anything left is removed by the next startup sweep.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                BlockShuffle.logger.warning("[Worlds] Some world folders weren't deleted before shutdown; they'll be swept on next start");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void attempt(Path folder, int attempt) {
+        if (!Files.exists(folder)) return;
+
+        long start = System.nanoTime();
+        DeletingVisitor visitor = new DeletingVisitor();
+        try {
+            Files.walkFileTree(folder, visitor);
+            BlockShuffle.logger.info("[Worlds] Deleted " + folder.getFileName() + " (" + visitor.files + " files, "
+                    + visitor.bytes / (1024 * 1024) + " MB) in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        } catch (IOException e) {
+            if (attempt >= MAX_ATTEMPTS) {
+                BlockShuffle.logger.severe("[Worlds] Giving up on deleting " + folder.getFileName() + " after "
+                        + attempt + " attempts: " + e);
+                return;
+            }
+            long delay = FIRST_RETRY_SECONDS << (attempt - 1);
+            BlockShuffle.logger.warning("[Worlds] Could not delete " + folder.getFileName() + " (" + e
+                    + "), retrying in " + delay + "s");
+            if (!executor.isShutdown()) {
+                executor.schedule(() -> attempt(folder, attempt + 1), delay, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    private static final class DeletingVisitor extends SimpleFileVisitor<Path> {
+        private long files;
+        private long bytes;
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+            Files.deleteIfExists(file);
+            files++;
+            bytes += attrs.size();
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+            // Already gone is fine; anything else fails this attempt
+            if (exc instanceof NoSuchFileException) return FileVisitResult.CONTINUE;
+            throw exc;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+            if (exc != null) throw exc;
+            Files.deleteIfExists(dir);
+            return FileVisitResult.CONTINUE;
+        }
+    }
+}
@@ -4,74 +4,503 @@ import org.bukkit.Bukkit;
 import org.bukkit.GameRules;
 import org.bukkit.World;
 import org.bukkit.WorldCreator;
+import org.bukkit.plugin.Plugin;
+import org.lukeeirl.blockShuffle.BlockShuffle;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
 
+/**
+ * Creates and tears down the worlds each game is played in. Only the overworld is made up front;
+ * the nether and end are created the first time a player takes a portal to them (see
+ * {@link #requestDimension}), since most games never leave the overworld. Generating a world
+ * blocks the main thread for seconds, so up to worldPoolSize overworlds are made ahead of time,
+ * one per check, only while no game is running, and {@link #leaseLinkedWorlds} hands out a
+ * ready one. Pooled worlds are kept unloaded on disk so they cost no ticks while they wait, and
+ * are loaded (not generated) when leased. They also survive restarts: a pooled folder carries a
+ * marker file, and marked folders are adopted back into the pool at startup instead of being
+ * swept. If worldPoolMaxAgeMinutes is set, worlds older than that are retired and regenerated.
+ * When {@link WorldTemplates} exist (built with /blockshuffle templates build),
+ * new worlds are copied from a random template in the background and go into the pool without
+ * touching the main thread at all. WorldCreator only works on the main thread, so without
+ * templates generation still stalls it; a lease that finds the pool empty never does that inline,
+ * it waits for the next world instead.
+ */
 public class WorldService {
+    private static final String GAME_WORLD_PREFIX = "blockshuffle_";
+    private static final String NETHER_SUFFIX = "_nether";
+    private static final String END_SUFFIX = "_the_end";
+    // Still a game world prefix, so a build interrupted by a crash is swept on the next start
+    private static final String TEMPLATE_PREFIX = GAME_WORLD_PREFIX + "template_";
+    // Dropped into a world folder while it waits in the pool; a folder without it was played in
+    private static final String POOL_MARKER = "blockshuffle_pooled";
+    // Gap between template builds so the server gets a chance to breathe
+    private static final long TEMPLATE_BUILD_GAP_TICKS = 20L;
+    // How often the pool is topped up or pruned while idle
+    private static final long POOL_CHECK_TICKS = 20L * 15;
 
-    public World createLinkedWorlds(String baseName) {
-        // Create Overworld
-        World overworld = new WorldCreator(baseName)
-                .environment(World.Environment.NORMAL)
-                .createWorld();
+    private final Plugin plugin;
+    private final ChunkMaterialIndex chunkMaterialIndex;
+    private final WorldDeletionQueue deletionQueue = new WorldDeletionQueue();
+    private final WorldTemplates templates;
+    private final int poolSize;
+    private final long maxAgeMillis;
+    private final Deque<PooledWorld> pool = new ArrayDeque<>();
+    private int poolTask = -1;
+    private BooleanSupplier gameRunning = () -> false;
+    // A world is being copied or is about to be generated for the pool
+    private boolean filling;
+    private boolean buildingTemplates;
+    private long lastGenerationMillis;
+    private long leasedFromPool;
+    private long generatedOnDemand;
+    private long retired;
+    private long clonedFromTemplate;
+    private final Map<String, List<Consumer<World>>> pendingDimensions = new HashMap<>();
+    private final List<Consumer<World>> dimensionListeners = new ArrayList<>();
+    // Lease waiting on the next world because the pool was empty
+    private Consumer<World> pendingLease;
 
-        // Create Nether
-        new WorldCreator(baseName + "_nether")
-                .environment(World.Environment.NETHER)
-                .createWorld();
+    private record PooledWorld(String name, long createdAt) {}
 
-        // Optionally create The End (you can skip if not needed)
-        new WorldCreator(baseName + "_the_end")
-                .environment(World.Environment.THE_END)
-                .createWorld();
+    /**
+     * Snapshot of the pool for /blockshuffle pool.
+     */
+    public record PoolStatus(int ready, int capacity, long lastGenerationMillis, long leasedFromPool, long generatedOnDemand, long retired,
+                             int templates, long clonedFromTemplate) {}
+
+    public WorldService(Plugin plugin, ChunkMaterialIndex chunkMaterialIndex, int poolSize, int maxAgeMinutes) {
+        this.plugin = plugin;
+        this.chunkMaterialIndex = chunkMaterialIndex;
+        this.poolSize = Math.max(0, poolSize);
+        this.maxAgeMillis = maxAgeMinutes * 60_000L;
+        this.templates = new WorldTemplates(plugin.getDataFolder());
+        sweepOrphans();
+    }
+
+    /**
+     * Adopts pooled worlds left by the last run (newest first, up to worldPoolSize) and queues
+     * deletion of every other game world folder, i.e. those left behind by a crash or a stop
+     * mid-game. Worlds that are currently loaded are left alone.
+     */
+    private void sweepOrphans() {
+        File[] folders = Bukkit.getWorldContainer().listFiles(file ->
+                file.isDirectory() && file.getName().startsWith(GAME_WORLD_PREFIX) && Bukkit.getWorld(file.getName()) == null);
+        if (folders == null || folders.length == 0) return;
+
+        List<PooledWorld> adoptable = new ArrayList<>();
+        List<File> orphans = new ArrayList<>();
+        for (File folder : folders) {
+            File marker = new File(folder, POOL_MARKER);
+            if (marker.isFile() && new File(folder, "level.dat").isFile()) {
+                adoptable.add(new PooledWorld(folder.getName(), marker.lastModified()));
+            } else {
+                orphans.add(folder);
+            }
+        }
+        adoptable.sort(Comparator.comparingLong(PooledWorld::createdAt).reversed());
+        for (PooledWorld pooled : adoptable) {
+            if (pool.size() < poolSize) {
+                pool.addLast(pooled);
+            } else {
+                orphans.add(folder(pooled.name()).toFile());
+            }
+        }
+
+        if (!pool.isEmpty()) {
+            BlockShuffle.logger.info("[WorldPool] Adopted " + pool.size() + " pooled worlds from the last run");
+        }
+        if (orphans.isEmpty()) return;
+        BlockShuffle.logger.info("[Worlds] Found " + orphans.size() + " leftover game world folders, deleting them in the background");
+        for (File folder : orphans) {
+            deletionQueue.delete(folder.toPath());
+        }
+    }
+
+    /**
+     * Starts topping up the pool in the background.
+     *
+     * @param gameRunning Generation is skipped while this is true, so it never stalls a game
+     */
+    public void startPool(BooleanSupplier gameRunning) {
+        this.gameRunning = gameRunning;
+        if (poolSize == 0) return;
+        poolTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
+            if (!gameRunning.getAsBoolean() && !buildingTemplates) {
+                maintainPool();
+            }
+        }, POOL_CHECK_TICKS, POOL_CHECK_TICKS).getTaskId();
+    }
+
+    /**
+     * Does one unit of pool work: retires one stale world, or generates (or starts cloning) one missing world.
+     */
+    private void maintainPool() {
+        long now = System.currentTimeMillis();
+        for (Iterator<PooledWorld> it = pool.iterator(); it.hasNext(); ) {
+            PooledWorld pooled = it.next();
+            if (maxAgeMillis > 0 && now - pooled.createdAt() > maxAgeMillis) {
+                it.remove();
+                retired++;
+                BlockShuffle.logger.info("[WorldPool] Retiring " + pooled.name() + " after "
+                        + (now - pooled.createdAt()) / 60_000 + " minutes");
+                deletionQueue.delete(folder(pooled.name()));
+                return;
+            }
+        }
 
-        // Apply game rules to all three worlds
-        for (World world : List.of(
-                Objects.requireNonNull(Bukkit.getWorld(baseName)),
-                Objects.requireNonNull(Bukkit.getWorld(baseName + "_nether")),
-                Objects.requireNonNull(Bukkit.getWorld(baseName + "_the_end"))
-        )) {
-            if (world != null) {
-                world.setGameRule(GameRules.IMMEDIATE_RESPAWN, true);
-                world.setGameRule(GameRules.SPAWN_PHANTOMS, false);
-                world.setViewDistance(32);
-                world.setSimulationDistance(32);
+        if (pool.size() < poolSize && !filling) {
+            fillOne();
+        }
+    }
+
+    /**
+     * Starts making one world for the pool: a background copy if there is a template, otherwise
+     * generation on its own tick so it never runs inside the caller.
+     */
+    private void fillOne() {
+        filling = true;
+        Path template = templates.pick();
+        if (template != null) {
+            cloneIntoPool(template);
+        } else {
+            Bukkit.getScheduler().runTask(plugin, this::generateIntoPool);
+        }
+    }
+
+    /**
+     * Copies a template on the copier thread and pools the folder as is; it is loaded when leased.
+     */
+    private void cloneIntoPool(Path template) {
+        long start = System.nanoTime();
+        String name = newWorldName();
+        Path target = folder(name);
+        templates.copy(template, target).whenComplete((bytes, error) -> {
+            if (!plugin.isEnabled()) return;
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                if (error != null) {
+                    BlockShuffle.logger.warning("[WorldPool] Could not copy template " + template.getFileName() + ": " + error.getMessage());
+                    deletionQueue.delete(target);
+                    if (pendingLease != null) {
+                        // Someone is waiting; don't make them wait on another copy that may fail the same way
+                        generateIntoPool();
+                    } else {
+                        filling = false;
+                    }
+                    return;
+                }
+                filling = false;
+                lastGenerationMillis = (System.nanoTime() - start) / 1_000_000;
+                clonedFromTemplate++;
+                BlockShuffle.logger.info("[WorldPool] Cloned " + template.getFileName() + " as " + name + " in " + lastGenerationMillis + "ms");
+                offer(new PooledWorld(name, System.currentTimeMillis()));
+            });
+        });
+    }
+
+    /**
+     * Generates a world on the main thread. A waiting lease gets it as it is; otherwise it is
+     * unloaded so it waits in the pool without ticking.
+     */
+    private void generateIntoPool() {
+        filling = false;
+        long start = System.nanoTime();
+        World overworld = createOverworld(newWorldName());
+        String name = overworld.getName();
+        lastGenerationMillis = (System.nanoTime() - start) / 1_000_000;
+        if (pendingLease != null) {
+            BlockShuffle.logger.info("[WorldPool] Generated " + name + " for a waiting game in " + lastGenerationMillis + "ms");
+            Consumer<World> lease = pendingLease;
+            pendingLease = null;
+            lease.accept(overworld);
+            return;
+        }
+
+        chunkMaterialIndex.release(overworld);
+        if (!Bukkit.unloadWorld(overworld, true)) {
+            BlockShuffle.logger.warning("[WorldPool] Could not unload freshly generated " + name + ", discarding it");
+            deleteWorld(overworld);
+            return;
+        }
+        BlockShuffle.logger.info("[WorldPool] Generated " + name + " in " + lastGenerationMillis + "ms");
+        offer(new PooledWorld(name, System.currentTimeMillis()));
+    }
+
+    /**
+     * Hands a new world to a waiting lease, or pools it.
+     */
+    private void offer(PooledWorld pooled) {
+        if (pendingLease != null) {
+            Consumer<World> lease = pendingLease;
+            pendingLease = null;
+            lease.accept(createOverworld(pooled.name()));
+            return;
+        }
+        try {
+            Files.writeString(folder(pooled.name()).resolve(POOL_MARKER), "");
+        } catch (IOException e) {
+            // Still usable this run; it just won't be adopted after a restart
+            BlockShuffle.logger.warning("[WorldPool] Could not mark " + pooled.name() + " as pooled: " + e.getMessage());
+        }
+        pool.addLast(pooled);
+        BlockShuffle.logger.info("[WorldPool] " + pool.size() + "/" + poolSize + " ready");
+    }
+
+    /**
+     * Hands out a ready world set. A pooled world is loaded and passed to onReady straight away;
+     * if the pool is empty the next world made is passed to it instead, and nothing is generated
+     * inside this call.
+     *
+     * @param onReady Runs on the main thread with the set's overworld; replaces any lease still
+     *                waiting, and is dropped by {@link #cancelLease()}
+     * @return Whether onReady already ran
+     */
+    public boolean leaseLinkedWorlds(Consumer<World> onReady) {
+        PooledWorld pooled = pool.pollFirst();
+        if (pooled != null) {
+            pendingLease = null;
+            leasedFromPool++;
+            try {
+                Files.deleteIfExists(folder(pooled.name()).resolve(POOL_MARKER));
+            } catch (IOException e) {
+                BlockShuffle.logger.warning("[WorldPool] Could not unmark " + pooled.name() + ": " + e.getMessage());
             }
+            onReady.accept(createOverworld(pooled.name()));
+            return true;
         }
 
+        pendingLease = onReady;
+        generatedOnDemand++;
+        BlockShuffle.logger.info("[WorldPool] Pool empty, waiting on " + (filling ? "the world in progress" : "a new world"));
+        if (!filling) {
+            fillOne();
+        }
+        return false;
+    }
+
+    /**
+     * Drops a lease still waiting on a world; the world goes into the pool when it is done.
+     */
+    public void cancelLease() {
+        pendingLease = null;
+    }
+
+    public PoolStatus poolStatus() {
+        return new PoolStatus(pool.size(), poolSize, lastGenerationMillis, leasedFromPool, generatedOnDemand, retired,
+                templates.size(), clonedFromTemplate);
+    }
+
+    /**
+     * Stops pool maintenance; pooled worlds are left on disk for the next start. Call from onDisable.
+     */
+    public void shutdown() {
+        if (poolTask != -1) {
+            Bukkit.getScheduler().cancelTask(poolTask);
+            poolTask = -1;
+        }
+        pendingLease = null;
+        // Pooled worlds stay on disk and are adopted on the next start
+        pool.clear();
+        templates.shutdown();
+        deletionQueue.shutdown();
+    }
+
+    /**
+     * Generates template worlds one at a time, each with a random seed, and moves them into the
+     * template library. Stops early if a game starts.
+     *
+     * @param onBuilt Runs on the main thread with the running count after each template is stored
+     * @param onDone Runs on the main thread with the number built
+     * @return False if a build is already running
+     */
+    public boolean buildTemplates(int count, IntConsumer onBuilt, IntConsumer onDone) {
+        if (buildingTemplates) return false;
+        buildingTemplates = true;
+        buildTemplate(0, count, onBuilt, onDone);
+        return true;
+    }
+
+    private void buildTemplate(int built, int count, IntConsumer onBuilt, IntConsumer onDone) {
+        if (built >= count || gameRunning.getAsBoolean()) {
+            buildingTemplates = false;
+            onDone.accept(built);
+            return;
+        }
+
+        long start = System.nanoTime();
+        String name = TEMPLATE_PREFIX + System.currentTimeMillis();
+        World world = new WorldCreator(name)
+                .environment(World.Environment.NORMAL)
+                .seed(ThreadLocalRandom.current().nextLong())
+                .createWorld();
+        if (world == null) {
+            BlockShuffle.logger.severe("[Templates] Could not create " + name);
+            buildingTemplates = false;
+            onDone.accept(built);
+            return;
+        }
+        long seed = world.getSeed();
+        Path folder = world.getWorldFolder().toPath();
+        chunkMaterialIndex.release(world);
+        if (!Bukkit.unloadWorld(world, true)) {
+            BlockShuffle.logger.severe("[Templates] Could not unload " + name + ", stopping the build");
+            buildingTemplates = false;
+            onDone.accept(built);
+            return;
+        }
+
+        templates.store(folder).whenComplete((template, error) -> {
+            if (!plugin.isEnabled()) return;
+            Bukkit.getScheduler().runTaskLater(plugin, () -> {
+                if (error != null) {
+                    BlockShuffle.logger.severe("[Templates] Could not store " + name + ": " + error.getMessage());
+                    buildingTemplates = false;
+                    onDone.accept(built);
+                    return;
+                }
+                BlockShuffle.logger.info("[Templates] Built " + template.getFileName() + " (seed " + seed + ") in "
+                        + (System.nanoTime() - start) / 1_000_000 + "ms");
+                onBuilt.accept(built + 1);
+                buildTemplate(built + 1, count, onBuilt, onDone);
+            }, TEMPLATE_BUILD_GAP_TICKS);
+        });
+    }
+
+    private static String newWorldName() {
+        return GAME_WORLD_PREFIX + System.currentTimeMillis();
+    }
+
+    private static Path folder(String worldName) {
+        return Bukkit.getWorldContainer().toPath().resolve(worldName);
+    }
+
+    private static List<World> linked(World overworld) {
+        String name = overworld.getName();
+        return Stream.of(overworld, Bukkit.getWorld(name + NETHER_SUFFIX), Bukkit.getWorld(name + END_SUFFIX))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    public static boolean isGameWorld(World world) {
+        return world.getName().startsWith(GAME_WORLD_PREFIX);
+    }
+
+    private World createOverworld(String baseName) {
+        World overworld = new WorldCreator(baseName)
+                .environment(World.Environment.NORMAL)
+                .createWorld();
+        applyGameRules(Objects.requireNonNull(overworld));
         return overworld;
     }
 
-    public void deleteWorld(World world) {
-        if (world != null) {
-            Bukkit.unloadWorld(world, false);
-            deleteWorldFolder(world.getWorldFolder());
+    private static void applyGameRules(World world) {
+        world.setGameRule(GameRules.IMMEDIATE_RESPAWN, true);
+        world.setGameRule(GameRules.SPAWN_PHANTOMS, false);
+        world.setViewDistance(32);
+        world.setSimulationDistance(32);
+    }
 
-            // Also delete _nether and _the_end
-            String name = world.getName();
-            World nether = Bukkit.getWorld(name + "_nether");
-            World theEnd = Bukkit.getWorld(name + "_the_end");
+    /**
+     * @return The game's nether or end if it has been created, otherwise null
+     */
+    public static World dimension(World overworld, World.Environment environment) {
+        return Bukkit.getWorld(dimensionName(overworld, environment));
+    }
+
+    private static String dimensionName(World overworld, World.Environment environment) {
+        return overworld.getName() + (environment == World.Environment.NETHER ? NETHER_SUFFIX : END_SUFFIX);
+    }
+
+    /**
+     * Creates a game's nether or end the first time someone needs it. Creation happens on the next
+     * tick rather than inside whatever event asked for it; requests made meanwhile share it.
+     *
+     * @param onReady Runs on the main thread with the dimension, or with null if it couldn't be
+     *                created or the game's overworld is gone by the time it would be
+     */
+    public void requestDimension(World overworld, World.Environment environment, Consumer<World> onReady) {
+        World existing = dimension(overworld, environment);
+        if (existing != null) {
+            onReady.accept(existing);
+            return;
+        }
+
+        String name = dimensionName(overworld, environment);
+        List<Consumer<World>> waiting = pendingDimensions.get(name);
+        if (waiting != null) {
+            waiting.add(onReady);
+            return;
+        }
+        waiting = new ArrayList<>();
+        waiting.add(onReady);
+        pendingDimensions.put(name, waiting);
 
-            if (nether != null) {
-                Bukkit.unloadWorld(nether, false);
-                deleteWorldFolder(nether.getWorldFolder());
+        String overworldName = overworld.getName();
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            List<Consumer<World>> callbacks = pendingDimensions.remove(name);
+            // The game ended first; creating it now would only leave an orphan
+            if (Bukkit.getWorld(overworldName) == null) {
+                callbacks.forEach(callback -> callback.accept(null));
+                return;
             }
 
-            if (theEnd != null) {
-                Bukkit.unloadWorld(theEnd, false);
-                deleteWorldFolder(theEnd.getWorldFolder());
+            long start = System.nanoTime();
+            World created = new WorldCreator(name).environment(environment).createWorld();
+            if (created == null) {
+                BlockShuffle.logger.severe("[Worlds] Could not create " + name);
+                callbacks.forEach(callback -> callback.accept(null));
+                return;
             }
-        }
+            applyGameRules(created);
+            BlockShuffle.logger.info("[Worlds] Created " + name + " on first use in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+            for (Consumer<World> listener : dimensionListeners) {
+                listener.accept(created);
+            }
+            for (Consumer<World> callback : callbacks) {
+                callback.accept(created);
+            }
+        });
     }
 
-    private void deleteWorldFolder(File folder) {
-        if (folder.isDirectory()) {
-            for (File file : Objects.requireNonNull(folder.listFiles())) {
-                deleteWorldFolder(file);
+    /**
+     * Registers a callback for every nether or end created by {@link #requestDimension}.
+     */
+    public void onDimensionCreated(Consumer<World> listener) {
+        dimensionListeners.add(listener);
+    }
+
+    /**
+     * Unloads a game's worlds (main thread) and queues their folders for background deletion.
+     */
+    public void deleteWorld(World world) {
+        if (world != null) {
+            String name = world.getName();
+            for (World linked : linked(world)) {
+                chunkMaterialIndex.release(linked);
+                File folder = linked.getWorldFolder();
+                if (Bukkit.unloadWorld(linked, false)) {
+                    deletionQueue.delete(folder.toPath());
+                } else {
+                    // Still loaded (e.g. someone is in it); the startup sweep will pick it up later
+                    BlockShuffle.logger.warning("[Worlds] Could not unload " + linked.getName() + " from " + name + ", leaving its folder");
+                }
             }
         }
-        folder.delete();
     }
 }
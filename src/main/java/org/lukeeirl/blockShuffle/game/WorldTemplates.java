@@ -0,0 +1,150 @@
+package org.lukeeirl.blockShuffle.game;
+
+import org.lukeeirl.blockShuffle.BlockShuffle;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A library of pre-generated overworlds kept under plugins/BlockShuffle/templates, each with its
+ * own seed. Starting a game from one is a folder copy plus a load of already generated chunks,
+ * which is bounded by disk speed instead of terrain generation. Copies run on a single background
+ * thread with {@link FileChannel#transferTo}, which lets the kernel move the bytes without going
+ * through the heap. Hard links aren't used: the server rewrites region files in place, so a
+ * linked copy would modify the template.
+ */
+public class WorldTemplates {
+    // Per-instance identity and lock files; the server writes fresh ones when the copy is loaded
+    private static final Set<String> SKIPPED_FILES = Set.of("uid.dat", "session.lock");
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    private final Path folder;
+    private final ExecutorService copier = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "BlockShuffle-world-copier");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public WorldTemplates(File dataFolder) {
+        this.folder = dataFolder.toPath().resolve("templates");
+    }
+
+    /**
+     * @return Template folders that hold a complete world, in no particular order
+     */
+    public List<Path> list() {
+        File[] templates = folder.toFile().listFiles(file -> file.isDirectory()
+                && !file.getName().endsWith(PARTIAL_SUFFIX) && new File(file, "level.dat").isFile());
+        return templates == null ? List.of() : Arrays.stream(templates).map(File::toPath).toList();
+    }
+
+    public int size() {
+        return list().size();
+    }
+
+    /**
+     * @return A random template, or null if there are none
+     */
+    public Path pick() {
+        List<Path> templates = list();
+        return templates.isEmpty() ? null : templates.get(ThreadLocalRandom.current().nextInt(templates.size()));
+    }
+
+    /**
+     * Copies a template into a new world folder on the copier thread.
+     *
+     * @param target World folder to create; must not exist yet
+     * @return Completes with the number of bytes copied
+     */
+    public CompletableFuture<Long> copy(Path template, Path target) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return copyTree(template, target);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, copier);
+    }
+
+    /**
+     * Moves a freshly generated and unloaded world folder into the library on the copier thread.
+     */
+    public CompletableFuture<Path> store(Path world) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Files.createDirectories(folder);
+                Path template = folder.resolve(world.getFileName());
+                try {
+                    Files.move(world, template, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    // Different filesystem; copy it over and let the original be swept on next start.
+                    // Copied under another name first so a half-copied template is never picked
+                    Path partial = folder.resolve(world.getFileName() + PARTIAL_SUFFIX);
+                    copyTree(world, partial);
+                    Files.move(partial, template, StandardCopyOption.ATOMIC_MOVE);
+                }
+                return template;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, copier);
+    }
+
+    /**
+     * Lets an in-progress copy finish. Call from onDisable.
+     */
+    public void shutdown() {
+        copier.shutdown();
+    }
+
+    private static long copyTree(Path source, Path target) throws IOException {
+        long start = System.nanoTime();
+        long[] bytes = new long[1];
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(source.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (SKIPPED_FILES.contains(file.getFileName().toString())) return FileVisitResult.CONTINUE;
+                bytes[0] += transfer(file, target.resolve(source.relativize(file)));
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        BlockShuffle.logger.info("[Templates] Copied " + source.getFileName() + " to " + target.getFileName() + " ("
+                + bytes[0] / (1024 * 1024) + " MB) in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        return bytes[0];
+    }
+
+    private static long transfer(Path from, Path to) throws IOException {
+        try (FileChannel in = FileChannel.open(from, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(to, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            long position = 0;
+            // transferTo may move less than asked for (e.g. 2 GB per call on Linux), so loop
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+            return size;
+        }
+    }
+}
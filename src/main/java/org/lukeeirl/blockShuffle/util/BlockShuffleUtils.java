@@ -16,10 +16,10 @@ import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.SkullMeta;
 import org.lukeeirl.blockShuffle.BlockShuffle;
+import org.lukeeirl.blockShuffle.game.BlockSelector;
 import org.lukeeirl.blockShuffle.game.PlayerTracker;
 
 import java.util.List;
-import java.util.Random;
 import java.util.UUID;
 import java.util.logging.Level;
 
@@ -28,43 +28,6 @@ import static org.lukeeirl.blockShuffle.util.PlayerUtils.prefixedMessage;
 
 public class BlockShuffleUtils {
 
-    /**
-     * Selects a random non-null material from the provided list.
-     * Logs selection for debugging purposes.
-     *
-     * @param materials List of materials to choose from
-     * @param random Random instance for selection
-     * @return A randomly selected Material (never null)
-     */
-    public static Material getRandomMaterial(List<Material> materials, Random random) {
-        Material selectedMaterial = null;
-        int attemptCount = 0;
-
-        while (selectedMaterial == null) {
-            int randomIndex = random.nextInt(materials.size());
-            selectedMaterial = materials.get(randomIndex);
-
-            if (selectedMaterial == null) {
-                BlockShuffle.logger.warning(String.format(
-                        "[ERROR] getRandomMaterial(): Null material at index %d (Attempt #%d). Retrying...",
-                        randomIndex,
-                        attemptCount
-                ));
-            } else {
-                BlockShuffle.logger.fine(String.format(
-                        "[DEBUG] getRandomMaterial(): Selected index %d on attempt #%d. Material: %s",
-                        randomIndex,
-                        attemptCount,
-                        selectedMaterial.name()
-                ));
-            }
-
-            attemptCount++;
-        }
-
-        return selectedMaterial;
-    }
-
     /**
      * Broadcasts an elimination message for a player.
      * Shows their assigned block if they still had one.
@@ -120,19 +83,47 @@ public class BlockShuffleUtils {
         Bukkit.broadcast(message);
     }
 
+    /**
+     * Broadcasts the blocks found during one tick as a single message.
+     * A lone completion keeps the usual per-player wording.
+     *
+     * @param players Players who stood on their block, in completion order
+     * @param blocks The block each player stood on (same order as players)
+     */
+    public static void announceCompletions(List<Player> players, List<Material> blocks) {
+        if (players.size() == 1) {
+            Bukkit.broadcast(prefixedMessage(
+                    Component.text(players.getFirst().getName() + " ", NamedTextColor.WHITE)
+                            .append(Component.text("stood on their block. Their block was: ", NamedTextColor.GREEN))
+                            .append(Component.text(formatMaterialName(blocks.getFirst()), NamedTextColor.GREEN, TextDecoration.BOLD))));
+            return;
+        }
+
+        Component message = Component.text(players.size() + " players stood on their blocks: ", NamedTextColor.GREEN);
+        for (int i = 0; i < players.size(); i++) {
+            if (i > 0) {
+                message = message.append(Component.text(", ", NamedTextColor.GRAY));
+            }
+            message = message.append(Component.text(players.get(i).getName() + " ", NamedTextColor.WHITE))
+                    .append(Component.text("(", NamedTextColor.GRAY))
+                    .append(Component.text(formatMaterialName(blocks.get(i)), NamedTextColor.GREEN, TextDecoration.BOLD))
+                    .append(Component.text(")", NamedTextColor.GRAY));
+        }
+        Bukkit.broadcast(prefixedMessage(message));
+    }
+
     /**
      * Assigns a new random block to a player and notifies them.
      *
      * @param uuid Player UUID
      * @param tracker PlayerTracker instance
-     * @param materials List of available materials
-     * @param random Random instance for selection
+     * @param blockSelector Selector that picks the player's next block
      */
-    public static void assignNewBlockToPlayer(UUID uuid, PlayerTracker tracker, List<Material> materials, Random random) {
+    public static void assignNewBlockToPlayer(UUID uuid, PlayerTracker tracker, BlockSelector blockSelector) {
         Player player = Bukkit.getPlayer(uuid);
         if (player == null) return;
 
-        Material block = getRandomMaterial(materials, random);
+        Material block = blockSelector.next(uuid);
         String blockName = formatMaterialName(block);
         tracker.assignBlock(uuid, block);
 
@@ -0,0 +1,148 @@
+package org.lukeeirl.blockShuffle.util;
+
+import org.lukeeirl.blockShuffle.BlockShuffle;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Write-behind queue that keeps only the latest value per key and hands them to a sink in
+ * batches from a single background thread. Submitting is a map put, so it is cheap enough to
+ * call from the main thread on every change; repeated changes to one key between flushes
+ * collapse into a single write.
+ *
+ * @param <K> Key, e.g. a player UUID
+ * @param <V> Full current state for that key (not a delta)
+ */
+public class CoalescingWriter<K, V> {
+    private final String name;
+    private final Consumer<Map<K, V>> sink;
+    private final Map<K, V> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+
+    /**
+     * @param name Used for the thread name and log messages
+     * @param intervalMillis How often pending values are flushed
+     * @param sink Writes a batch; runs on the writer thread only, so it may own non-thread-safe state.
+     *             If it throws, the batch is re-queued unless newer values arrived meanwhile.
+     */
+    public CoalescingWriter(String name, long intervalMillis, Consumer<Map<K, V>> sink) {
+        this.name = name;
+        this.sink = sink;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "BlockShuffle-" + name + "-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::drain, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void submit(K key, V value) {
+        pending.put(key, value);
+    }
+
+    /**
+     * Queues several values so they are always written in the same batch.
+     */
+    public void submitAll(Map<K, V> values) {
+        synchronized (pending) {
+            pending.putAll(values);
+        }
+    }
+
+    /**
+     * @return The value queued for a key that hasn't been written yet, or null
+     */
+    public V peek(K key) {
+        return pending.get(key);
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Runs a task on the writer thread, after anything already queued there.
+     */
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    /**
+     * Runs a task on the writer thread and completes with its result there.
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    /**
+     * Writes everything pending, then runs a task on the writer thread, so the task sees every
+     * value submitted before this call.
+     */
+    public <T> CompletableFuture<T> supplyFlushed(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            drain();
+            return task.get();
+        }, executor);
+    }
+
+    /**
+     * Writes everything pending and waits for it to finish.
+     */
+    public void flush() {
+        try {
+            executor.submit(this::drain).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            BlockShuffle.logger.severe("[" + name + "] Flush failed: " + e.getCause());
+        }
+    }
+
+    /**
+     * Stops the background thread and writes whatever is still pending on the calling thread.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                BlockShuffle.logger.warning("[" + name + "] Writer did not stop in time, flushing anyway");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drain();
+    }
+
+    private void drain() {
+        if (pending.isEmpty()) return;
+
+        Map<K, V> batch = new HashMap<>(pending.size());
+        // Holding the lock keeps a submitAll from being split across two batches
+        synchronized (pending) {
+            for (Map.Entry<K, V> entry : pending.entrySet()) {
+                batch.put(entry.getKey(), entry.getValue());
+            }
+        }
+        // Only remove what was copied; anything that changed since stays queued for the next pass
+        for (Map.Entry<K, V> entry : batch.entrySet()) {
+            pending.remove(entry.getKey(), entry.getValue());
+        }
+
+        try {
+            sink.accept(batch);
+        } catch (RuntimeException e) {
+            BlockShuffle.logger.severe("[" + name + "] Failed to write " + batch.size() + " entries, will retry: " + e.getMessage());
+            batch.forEach(pending::putIfAbsent);
+        }
+    }
+}
@@ -0,0 +1,468 @@
+package org.lukeeirl.blockShuffle.util;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.plugin.Plugin;
+import org.lukeeirl.blockShuffle.BlockShuffle;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Finished games, appended to history.dat with a fixed-width offset per game in history.idx.
+ * A page of history is a seek into the index plus one read per game, so queries cost the same
+ * however long the history gets. Filtering by player works the same way through an in-memory
+ * list of each player's game positions, extended on append. The lists are saved to
+ * history.players on close and loaded from it on open, so startup only reads the games recorded
+ * since (after a crash); without a usable history.players every game is read once to rebuild them.
+ * All file access happens on one background thread; results are handed back on the main thread.
+ */
+public class GameHistoryStore {
+    private static final int MAGIC = 0x42534748; // "BSGH"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int PLAYERS_MAGIC = 0x42534750; // "BSGP"
+
+    private final Plugin plugin;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "BlockShuffle-history");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final CRC32 crc = new CRC32();
+    private final File playersFile;
+    private FileChannel data;
+    private FileChannel index;
+    private int count;
+    // Index positions of each player's games, oldest first; only touched on the history thread
+    private final Map<UUID, List<Integer>> gamesByPlayer = new HashMap<>();
+
+    /**
+     * A page of games, newest first.
+     *
+     * @param hasMore Whether an older page exists
+     */
+    public record Page(List<GameRecord> games, int page, boolean hasMore) {}
+
+    public GameHistoryStore(Plugin plugin) {
+        this.plugin = plugin;
+        File folder = plugin.getDataFolder();
+        playersFile = new File(folder, "history.players");
+        executor.execute(() -> open(new File(folder, "history.dat"), new File(folder, "history.idx")));
+    }
+
+    public void append(GameRecord record) {
+        executor.execute(() -> {
+            if (data == null) return;
+            try {
+                write(record);
+            } catch (IOException e) {
+                BlockShuffle.logger.severe("[History] Could not record game " + record.gameInstanceId() + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Reads a page of games, newest first.
+     *
+     * @param player Only include games this player took part in, or null for every game
+     * @param page 1-based page number
+     * @param onLoaded Runs on the main thread; receives null if the history couldn't be read
+     */
+    public void page(UUID player, int page, int pageSize, Consumer<Page> onLoaded) {
+        executor.execute(() -> {
+            Page result;
+            try {
+                result = data == null ? null : read(player, page, pageSize);
+            } catch (IOException | RuntimeException e) {
+                BlockShuffle.logger.severe("[History] Could not read history: " + e.getMessage());
+                result = null;
+            }
+            Page finalResult = result;
+            if (plugin.isEnabled()) {
+                Bukkit.getScheduler().runTask(plugin, () -> onLoaded.accept(finalResult));
+            }
+        });
+    }
+
+    public void close() {
+        executor.execute(() -> {
+            if (data == null) return;
+            try {
+                savePlayers();
+            } catch (IOException e) {
+                // Only costs a full rebuild on the next start
+                BlockShuffle.logger.warning("[History] Could not save the player index: " + e.getMessage());
+            }
+        });
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+            if (data != null) data.close();
+            if (index != null) index.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            BlockShuffle.logger.warning("[History] Error closing history files: " + e.getMessage());
+        }
+    }
+
+    private void open(File dataFile, File indexFile) {
+        try {
+            data = FileChannel.open(dataFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            index = FileChannel.open(indexFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            if (data.size() == 0) {
+                data.write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip(), 0);
+                index.truncate(0);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                data.read(header, 0);
+                header.flip();
+                if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                    throw new IOException("history.dat is not a BlockShuffle history file (or is from a newer version)");
+                }
+            }
+
+            // A crash can leave a game in one file but not the other; keep only games present in both
+            count = (int) (index.size() / Long.BYTES);
+            long end = HEADER_SIZE;
+            while (count > 0) {
+                long offset = offsetAt(count - 1);
+                long recordEnd = offset + Integer.BYTES + readLength(offset) + Integer.BYTES;
+                if (offset >= HEADER_SIZE && recordEnd <= data.size()) {
+                    end = recordEnd;
+                    break;
+                }
+                count--;
+            }
+            index.truncate((long) count * Long.BYTES);
+            data.truncate(end);
+
+            long start = System.nanoTime();
+            int loaded = loadPlayers();
+            for (int position = loaded; position < count; position++) {
+                ByteBuffer payload = readPayload(offsetAt(position));
+                if (payload != null) {
+                    indexPlayers(position, readParticipants(payload));
+                }
+            }
+            BlockShuffle.logger.info("[History] " + count + " games on record, indexed " + gamesByPlayer.size()
+                    + " players in " + (System.nanoTime() - start) / 1_000_000 + "ms (" + (count - loaded) + " games read)");
+        } catch (IOException e) {
+            BlockShuffle.logger.severe("[History] Game history disabled, could not open it: " + e.getMessage());
+            data = null;
+        }
+    }
+
+    private void write(GameRecord record) throws IOException {
+        byte[] payload = encode(record);
+        crc.reset();
+        crc.update(payload);
+
+        long start = data.size();
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + payload.length + Integer.BYTES)
+                .putInt(payload.length)
+                .put(payload)
+                .putInt((int) crc.getValue())
+                .flip();
+        long position = start;
+        while (buffer.hasRemaining()) {
+            position += data.write(buffer, position);
+        }
+        data.force(false);
+
+        // Index last, so an indexed game is always fully written
+        index.write(ByteBuffer.allocate(Long.BYTES).putLong(start).flip(), (long) count * Long.BYTES);
+        index.force(false);
+        indexPlayers(count, record.participants());
+        count++;
+    }
+
+    /**
+     * Writes every player's game positions to history.players, along with how many games they
+     * cover and where the last of those games starts, so a replaced history.dat isn't trusted.
+     */
+    private void savePlayers() throws IOException {
+        File temp = new File(playersFile.getPath() + ".tmp");
+        CRC32 checksum = new CRC32();
+        try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temp)), checksum))) {
+            out.writeInt(PLAYERS_MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(count);
+            out.writeLong(count == 0 ? -1 : offsetAt(count - 1));
+            out.writeInt(gamesByPlayer.size());
+            for (Map.Entry<UUID, List<Integer>> entry : gamesByPlayer.entrySet()) {
+                out.writeLong(entry.getKey().getMostSignificantBits());
+                out.writeLong(entry.getKey().getLeastSignificantBits());
+                out.writeInt(entry.getValue().size());
+                for (int position : entry.getValue()) {
+                    out.writeInt(position);
+                }
+            }
+            out.flush();
+            out.writeInt((int) checksum.getValue());
+        }
+        Files.move(temp.toPath(), playersFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Fills gamesByPlayer from history.players when it matches the history on disk.
+     *
+     * @return How many games it covered; the rest still need indexing
+     */
+    private int loadPlayers() {
+        if (!playersFile.isFile()) return 0;
+        try {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(playersFile.toPath()));
+            CRC32 checksum = new CRC32();
+            checksum.update(in.slice(0, in.limit() - Integer.BYTES));
+            if (in.getInt(in.limit() - Integer.BYTES) != (int) checksum.getValue()
+                    || in.getInt() != PLAYERS_MAGIC || in.getInt() != VERSION) {
+                throw new IOException("checksum or header mismatch");
+            }
+            int covered = in.getInt();
+            long lastOffset = in.getLong();
+            // Games are only ever appended, so the saved lists are still right as long as the game they end on is
+            if (covered > count || (covered > 0 && offsetAt(covered - 1) != lastOffset)) {
+                BlockShuffle.logger.info("[History] history.players doesn't match the history, rebuilding it");
+                return 0;
+            }
+            int players = in.getInt();
+            for (int i = 0; i < players; i++) {
+                UUID uuid = new UUID(in.getLong(), in.getLong());
+                int size = in.getInt();
+                List<Integer> positions = new ArrayList<>(size);
+                for (int j = 0; j < size; j++) {
+                    positions.add(in.getInt());
+                }
+                gamesByPlayer.put(uuid, positions);
+            }
+            return covered;
+        } catch (IOException | RuntimeException e) {
+            BlockShuffle.logger.warning("[History] Ignoring unreadable history.players, rebuilding it: " + e.getMessage());
+            gamesByPlayer.clear();
+            return 0;
+        }
+    }
+
+    private void indexPlayers(int position, List<UUID> participants) {
+        for (UUID uuid : participants) {
+            gamesByPlayer.computeIfAbsent(uuid, id -> new ArrayList<>()).add(position);
+        }
+    }
+
+    private Page read(UUID player, int page, int pageSize) throws IOException {
+        List<GameRecord> games = new ArrayList<>(pageSize);
+        // Long so a huge page number can't wrap around into a real page
+        long skip = (long) (page - 1) * pageSize;
+        List<Integer> positions = player == null ? null : gamesByPlayer.getOrDefault(player, List.of());
+        if (skip >= (positions == null ? count : positions.size())) {
+            return new Page(games, page, false);
+        }
+
+        if (positions == null) {
+            int newest = (int) (count - 1 - skip);
+            for (int i = newest; i >= 0 && games.size() < pageSize; i--) {
+                GameRecord record = readAt(offsetAt(i));
+                if (record != null) games.add(record);
+            }
+            return new Page(games, page, newest - pageSize >= 0);
+        }
+
+        // Filtered: the same seek, through the player's own list of positions
+        int newest = (int) (positions.size() - 1 - skip);
+        for (int i = newest; i >= 0 && games.size() < pageSize; i--) {
+            GameRecord record = readAt(offsetAt(positions.get(i)));
+            if (record != null) games.add(record);
+        }
+        return new Page(games, page, newest - pageSize >= 0);
+    }
+
+    private long offsetAt(int position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        index.read(buffer, (long) position * Long.BYTES);
+        return buffer.flip().getLong();
+    }
+
+    private int readLength(long offset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES);
+        if (data.read(buffer, offset) < Integer.BYTES) return Integer.MAX_VALUE / 2;
+        return buffer.flip().getInt();
+    }
+
+    private GameRecord readAt(long offset) throws IOException {
+        ByteBuffer payload = readPayload(offset);
+        return payload == null ? null : decode(payload);
+    }
+
+    /**
+     * @return The record's payload after checking its CRC, or null if it is truncated or corrupt
+     */
+    private ByteBuffer readPayload(long offset) throws IOException {
+        int length = readLength(offset);
+        if (length < 0 || offset + Integer.BYTES + length + Integer.BYTES > data.size()) {
+            BlockShuffle.logger.warning("[History] Skipping truncated game record at offset " + offset);
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length + Integer.BYTES);
+        data.read(buffer, offset + Integer.BYTES);
+        buffer.flip();
+
+        crc.reset();
+        crc.update(buffer.slice(0, length));
+        if (buffer.getInt(length) != (int) crc.getValue()) {
+            BlockShuffle.logger.warning("[History] Skipping corrupt game record at offset " + offset);
+            return null;
+        }
+        return buffer.limit(length);
+    }
+
+    private static byte[] encode(GameRecord record) throws IOException {
+        Map<UUID, Integer> players = new HashMap<>();
+        List<UUID> playerTable = new ArrayList<>(record.participants());
+        for (int i = 0; i < playerTable.size(); i++) {
+            players.put(playerTable.get(i), i);
+        }
+        Map<Material, Integer> materials = new HashMap<>();
+        List<Material> materialTable = new ArrayList<>();
+        for (GameRecord.Assignment assignment : record.assignments()) {
+            if (materials.putIfAbsent(assignment.material(), materialTable.size()) == null) {
+                materialTable.add(assignment.material());
+            }
+            if (players.putIfAbsent(assignment.player(), playerTable.size()) == null) {
+                playerTable.add(assignment.player());
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(record.gameInstanceId());
+        out.writeUTF(record.mode());
+        out.writeLong(record.startedAt());
+        out.writeLong(record.durationMillis());
+        out.writeInt(record.rounds());
+
+        out.writeShort(playerTable.size());
+        out.writeShort(record.participants().size());
+        for (UUID uuid : playerTable) {
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        }
+        writeIndexes(out, record.winners(), players);
+        writeIndexes(out, record.eliminated(), players);
+
+        // Material names rather than ordinals, which shift between Minecraft versions
+        out.writeShort(materialTable.size());
+        for (Material material : materialTable) {
+            out.writeUTF(material.name());
+        }
+        out.writeInt(record.assignments().size());
+        for (GameRecord.Assignment assignment : record.assignments()) {
+            out.writeShort(players.get(assignment.player()));
+            out.writeShort(materials.get(assignment.material()));
+            out.writeBoolean(assignment.found());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeIndexes(DataOutputStream out, List<UUID> uuids, Map<UUID, Integer> players) throws IOException {
+        List<Integer> known = new ArrayList<>(uuids.size());
+        for (UUID uuid : uuids) {
+            Integer playerIndex = players.get(uuid);
+            if (playerIndex != null) known.add(playerIndex);
+        }
+        out.writeShort(known.size());
+        for (int playerIndex : known) {
+            out.writeShort(playerIndex);
+        }
+    }
+
+    private static GameRecord decode(ByteBuffer in) {
+        long gameInstanceId = in.getLong();
+        String mode = readUTF(in);
+        long startedAt = in.getLong();
+        long duration = in.getLong();
+        int rounds = in.getInt();
+
+        int playerCount = in.getShort() & 0xFFFF;
+        int participantCount = in.getShort() & 0xFFFF;
+        List<UUID> playerTable = new ArrayList<>(playerCount);
+        for (int i = 0; i < playerCount; i++) {
+            playerTable.add(new UUID(in.getLong(), in.getLong()));
+        }
+        List<UUID> winners = readIndexes(in, playerTable);
+        List<UUID> eliminated = readIndexes(in, playerTable);
+
+        int materialCount = in.getShort() & 0xFFFF;
+        List<Material> materialTable = new ArrayList<>(materialCount);
+        for (int i = 0; i < materialCount; i++) {
+            materialTable.add(Material.getMaterial(readUTF(in))); // Null if the block no longer exists
+        }
+        int assignmentCount = in.getInt();
+        List<GameRecord.Assignment> assignments = new ArrayList<>(assignmentCount);
+        for (int i = 0; i < assignmentCount; i++) {
+            UUID player = playerTable.get(in.getShort() & 0xFFFF);
+            Material material = materialTable.get(in.getShort() & 0xFFFF);
+            assignments.add(new GameRecord.Assignment(player, material, in.get() != 0));
+        }
+
+        return new GameRecord(gameInstanceId, mode, startedAt, duration, rounds,
+                List.copyOf(playerTable.subList(0, participantCount)), winners, eliminated, assignments);
+    }
+
+    /**
+     * Reads just the participants from the start of a payload, for indexing.
+     */
+    private static List<UUID> readParticipants(ByteBuffer in) {
+        in.getLong();
+        readUTF(in);
+        in.position(in.position() + Long.BYTES + Long.BYTES + Integer.BYTES);
+        in.getShort(); // Player table size; participants come first in it
+        int participantCount = in.getShort() & 0xFFFF;
+        List<UUID> participants = new ArrayList<>(participantCount);
+        for (int i = 0; i < participantCount; i++) {
+            participants.add(new UUID(in.getLong(), in.getLong()));
+        }
+        return participants;
+    }
+
+    private static List<UUID> readIndexes(ByteBuffer in, List<UUID> playerTable) {
+        int size = in.getShort() & 0xFFFF;
+        List<UUID> uuids = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            uuids.add(playerTable.get(in.getShort() & 0xFFFF));
+        }
+        return uuids;
+    }
+
+    private static String readUTF(ByteBuffer in) {
+        // Matches DataOutputStream.writeUTF for the plain ASCII used by mode and material names
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,69 @@
+package org.lukeeirl.blockShuffle.util;
+
+import org.bukkit.Material;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Everything worth keeping about one finished game.
+ *
+ * @param eliminated Players in the order they were knocked out (or forfeited)
+ * @param assignments Every block handed out, in order, and whether it was found
+ */
+public record GameRecord(
+        long gameInstanceId,
+        String mode,
+        long startedAt,
+        long durationMillis,
+        int rounds,
+        List<UUID> participants,
+        List<UUID> winners,
+        List<UUID> eliminated,
+        List<Assignment> assignments
+) {
+    public record Assignment(UUID player, Material material, boolean found) {}
+
+    /**
+     * Finishing places for rating: 1 is best and tied players share a place. FirstTo ranks by
+     * blocks found; the other modes rank winners, then anyone still in when the game ended,
+     * then the eliminated in reverse order of elimination.
+     */
+    public Map<UUID, Integer> placements() {
+        Map<UUID, Integer> score = new HashMap<>(participants.size());
+        for (UUID player : participants) {
+            int value;
+            if (winners.contains(player)) {
+                value = Integer.MAX_VALUE;
+            } else if (mode.equals("FirstTo")) {
+                value = blocksFound(player);
+            } else {
+                int out = eliminated.indexOf(player);
+                value = out < 0 ? Integer.MAX_VALUE - 1 : out;
+            }
+            score.put(player, value);
+        }
+
+        Map<UUID, Integer> places = new HashMap<>(score.size());
+        for (Map.Entry<UUID, Integer> player : score.entrySet()) {
+            int ahead = 0;
+            for (int other : score.values()) {
+                if (other > player.getValue()) ahead++;
+            }
+            places.put(player.getKey(), ahead + 1);
+        }
+        return places;
+    }
+
+    public int blocksFound(UUID player) {
+        int found = 0;
+        for (Assignment assignment : assignments) {
+            if (assignment.found() && assignment.player().equals(player)) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,122 @@
+package org.lukeeirl.blockShuffle.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Glicko-2 skill ratings (Glickman, "Example of the Glicko-2 system"). A finished game is one
+ * rating period: every participant is compared with every other by placement, scoring 1 for
+ * finishing ahead, 0.5 for a tie and 0 for finishing behind, and all ratings are updated
+ * together from the pre-game values. Pure computation, safe to run off the main thread.
+ */
+public final class Glicko2 {
+    public static final double DEFAULT_RATING = 1500;
+    public static final double DEFAULT_DEVIATION = 350;
+    public static final double DEFAULT_VOLATILITY = 0.06;
+
+    // Conversion between the Glicko scale and the internal Glicko-2 scale
+    private static final double SCALE = 173.7178;
+    // Constrains how fast volatility changes; 0.3-1.2 is the usual range
+    private static final double TAU = 0.5;
+    private static final double EPSILON = 0.000001;
+
+    public record Rating(double rating, double deviation, double volatility) {
+        public static final Rating DEFAULT = new Rating(DEFAULT_RATING, DEFAULT_DEVIATION, DEFAULT_VOLATILITY);
+    }
+
+    private Glicko2() {
+    }
+
+    /**
+     * @param ratings Every participant's rating before the game
+     * @param placements Every participant's finishing place; lower is better, equal means tied
+     * @return New ratings for everyone in placements
+     */
+    public static Map<UUID, Rating> rateGame(Map<UUID, Rating> ratings, Map<UUID, Integer> placements) {
+        Map<UUID, Rating> updated = new HashMap<>(placements.size());
+        for (Map.Entry<UUID, Integer> player : placements.entrySet()) {
+            Rating own = ratings.getOrDefault(player.getKey(), Rating.DEFAULT);
+            double mu = (own.rating() - DEFAULT_RATING) / SCALE;
+            double phi = own.deviation() / SCALE;
+
+            double inverseVariance = 0;
+            double improvement = 0;
+            for (Map.Entry<UUID, Integer> opponent : placements.entrySet()) {
+                if (opponent.getKey().equals(player.getKey())) continue;
+                Rating other = ratings.getOrDefault(opponent.getKey(), Rating.DEFAULT);
+                double otherMu = (other.rating() - DEFAULT_RATING) / SCALE;
+                double g = g(other.deviation() / SCALE);
+                double expected = 1 / (1 + Math.exp(-g * (mu - otherMu)));
+                double score = Integer.compare(opponent.getValue(), player.getValue()) * 0.5 + 0.5;
+
+                inverseVariance += g * g * expected * (1 - expected);
+                improvement += g * (score - expected);
+            }
+            if (inverseVariance == 0) {
+                updated.put(player.getKey(), own);
+                continue;
+            }
+
+            double variance = 1 / inverseVariance;
+            double delta = variance * improvement;
+            double volatility = newVolatility(phi, own.volatility(), variance, delta);
+            double preDeviation = Math.sqrt(phi * phi + volatility * volatility);
+            double newPhi = 1 / Math.sqrt(1 / (preDeviation * preDeviation) + 1 / variance);
+            double newMu = mu + newPhi * newPhi * improvement;
+
+            updated.put(player.getKey(), new Rating(
+                    DEFAULT_RATING + SCALE * newMu,
+                    Math.min(DEFAULT_DEVIATION, SCALE * newPhi),
+                    volatility));
+        }
+        return updated;
+    }
+
+    private static double g(double phi) {
+        return 1 / Math.sqrt(1 + 3 * phi * phi / (Math.PI * Math.PI));
+    }
+
+    /**
+     * Step 5 of the paper: solve for the new volatility with the Illinois algorithm.
+     */
+    private static double newVolatility(double phi, double sigma, double variance, double delta) {
+        double a = Math.log(sigma * sigma);
+        double deltaSquared = delta * delta;
+        double phiSquared = phi * phi;
+
+        double upper = a;
+        double lower;
+        if (deltaSquared > phiSquared + variance) {
+            lower = Math.log(deltaSquared - phiSquared - variance);
+        } else {
+            int k = 1;
+            while (f(a - k * TAU, deltaSquared, phiSquared, variance, a) < 0) {
+                k++;
+            }
+            lower = a - k * TAU;
+        }
+
+        double fUpper = f(upper, deltaSquared, phiSquared, variance, a);
+        double fLower = f(lower, deltaSquared, phiSquared, variance, a);
+        while (Math.abs(lower - upper) > EPSILON) {
+            double candidate = upper + (upper - lower) * fUpper / (fLower - fUpper);
+            double fCandidate = f(candidate, deltaSquared, phiSquared, variance, a);
+            if (fCandidate * fLower <= 0) {
+                upper = lower;
+                fUpper = fLower;
+            } else {
+                fUpper = fUpper / 2;
+            }
+            lower = candidate;
+            fLower = fCandidate;
+        }
+        return Math.exp(upper / 2);
+    }
+
+    private static double f(double x, double deltaSquared, double phiSquared, double variance, double a) {
+        double ex = Math.exp(x);
+        double denominator = phiSquared + variance + ex;
+        return ex * (deltaSquared - phiSquared - variance - ex) / (2 * denominator * denominator) - (x - a) / (TAU * TAU);
+    }
+}
@@ -0,0 +1,298 @@
+package org.lukeeirl.blockShuffle.util;
+
+import org.lukeeirl.blockShuffle.BlockShuffle;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Stats as an append-only binary journal plus a periodic snapshot.
+ * Each saved player is one fixed-size record holding their full stats (not the increment), so
+ * replay is idempotent and the newest record for a UUID wins. A batch is one append and one
+ * fsync, which means a crash loses at most the batch being written; a torn tail is cut off on
+ * startup. A record that fails its CRC is skipped on its own, and the damaged file is copied to
+ * .corrupt before anything rewrites it. Once the journal grows well past the number of players
+ * it is folded into stats.snapshot and truncated, unless the snapshot itself had bad records,
+ * in which case compaction stays off so the damage can't be written over the only copy.
+ */
+public class JournalStatsStore implements StatsStore {
+    private static final int MAGIC = 0x42534A4C; // "BSJL"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 8;
+    // uuid (16) + four ints (16) + three rating doubles (24) + crc (4)
+    private static final int RECORD_SIZE = 60;
+    // Version 1 records had no rating; they are still read, and rewritten as version 2 on open
+    private static final int V1_RECORD_SIZE = 36;
+    // Compact once the journal holds this many records per live player (and at least MIN_COMPACT_RECORDS)
+    private static final int COMPACT_RATIO = 4;
+    private static final int MIN_COMPACT_RECORDS = 10_000;
+
+    private final Path snapshotPath;
+    private final Path journalPath;
+    // Sorted so full passes can page through it
+    private final NavigableMap<UUID, PlayerStats> state = new TreeMap<>();
+    private final CRC32 crc = new CRC32();
+    private FileChannel journal;
+    private long journalRecords;
+    private boolean sawVersion1;
+    // Records skipped by the last replay for failing their CRC
+    private int damagedRecords;
+    private boolean compactionBlocked;
+
+    public JournalStatsStore(File dataFolder) throws IOException {
+        this.snapshotPath = dataFolder.toPath().resolve("stats.snapshot");
+        this.journalPath = dataFolder.toPath().resolve("stats.journal");
+        Files.createDirectories(dataFolder.toPath());
+
+        if (Files.exists(snapshotPath)) {
+            try (FileChannel snapshot = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+                replay(snapshot, "stats.snapshot");
+            }
+            if (damagedRecords > 0) {
+                keepDamagedCopy(snapshotPath);
+                compactionBlocked = true;
+                BlockShuffle.logger.severe("[Stats] stats.snapshot has " + damagedRecords + " damaged records; journal compaction"
+                        + " is off so they aren't lost for good. Restore stats.snapshot from a backup to turn it back on");
+            }
+        }
+
+        this.journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (journal.size() == 0) {
+            writeHeader(journal);
+            journal.force(true);
+        } else {
+            long validEnd = replay(journal, "stats.journal");
+            if (damagedRecords > 0) {
+                keepDamagedCopy(journalPath);
+            }
+            this.journalRecords = (validEnd - HEADER_SIZE) / RECORD_SIZE;
+            if (validEnd < journal.size()) {
+                BlockShuffle.logger.warning("[Stats] Dropping " + (journal.size() - validEnd) + " bytes of incomplete journal tail");
+                journal.truncate(validEnd);
+            }
+        }
+        journal.position(journal.size());
+
+        if (sawVersion1) {
+            BlockShuffle.logger.info("[Stats] Upgrading the stats journal to version " + VERSION);
+            if (!compact()) {
+                journal.close();
+                // Appending new-size records to an old journal would corrupt it
+                throw new IOException("Could not upgrade the stats journal");
+            }
+        }
+    }
+
+    @Override
+    public Map<UUID, PlayerStats> loadAll() {
+        return new HashMap<>(state);
+    }
+
+    @Override
+    public LinkedHashMap<UUID, PlayerStats> loadPage(UUID after, int limit) {
+        LinkedHashMap<UUID, PlayerStats> page = new LinkedHashMap<>();
+        for (Map.Entry<UUID, PlayerStats> entry : (after == null ? state : state.tailMap(after, false)).entrySet()) {
+            if (page.size() == limit) break;
+            page.put(entry.getKey(), entry.getValue());
+        }
+        return page;
+    }
+
+    @Override
+    public PlayerStats load(UUID uuid) {
+        return state.get(uuid);
+    }
+
+    @Override
+    public void saveBatch(Map<UUID, PlayerStats> batch) {
+        ByteBuffer buffer = ByteBuffer.allocate(batch.size() * RECORD_SIZE);
+        for (Map.Entry<UUID, PlayerStats> entry : batch.entrySet()) {
+            putRecord(buffer, entry.getKey(), entry.getValue());
+        }
+        buffer.flip();
+
+        try {
+            while (buffer.hasRemaining()) {
+                journal.write(buffer);
+            }
+            journal.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to stats.journal", e);
+        }
+        state.putAll(batch);
+        journalRecords += batch.size();
+
+        if (!compactionBlocked && journalRecords >= Math.max(MIN_COMPACT_RECORDS, (long) state.size() * COMPACT_RATIO)) {
+            compact();
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            journal.close();
+        } catch (IOException e) {
+            BlockShuffle.logger.warning("[Stats] Error closing stats.journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes every player to a fresh snapshot, swaps it in, then empties the journal.
+     * If the server dies part way, the old snapshot or the untruncated journal still has everything.
+     *
+     * @return False if the snapshot couldn't be written or compaction is blocked, in which case nothing changed
+     */
+    private boolean compact() {
+        if (compactionBlocked) {
+            BlockShuffle.logger.warning("[Stats] Not compacting the journal while stats.snapshot is damaged");
+            return false;
+        }
+        long start = System.nanoTime();
+        Path temp = snapshotPath.resolveSibling("stats.snapshot.tmp");
+        try (FileChannel snapshot = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(snapshot);
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 1024);
+            for (Map.Entry<UUID, PlayerStats> entry : state.entrySet()) {
+                if (!buffer.hasRemaining()) {
+                    drain(snapshot, buffer);
+                }
+                putRecord(buffer, entry.getKey(), entry.getValue());
+            }
+            drain(snapshot, buffer);
+            snapshot.force(true);
+        } catch (IOException e) {
+            BlockShuffle.logger.warning("[Stats] Journal compaction failed, will retry later: " + e.getMessage());
+            return false;
+        }
+
+        try {
+            Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            journal.truncate(HEADER_SIZE);
+            // Rewritten in case the journal was from an older version
+            writeHeader(journal);
+            journal.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not swap in stats.snapshot", e);
+        }
+
+        BlockShuffle.logger.info("[Stats] Compacted " + journalRecords + " journal records into a snapshot of "
+                + state.size() + " players in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        journalRecords = 0;
+        return true;
+    }
+
+    /**
+     * Reads records into {@link #state} until the end of the file, skipping (and counting in
+     * {@link #damagedRecords}) any that fail their CRC. Records are fixed-size, so one bad record
+     * doesn't throw off the ones after it.
+     *
+     * @return Offset just past the last complete record
+     */
+    private long replay(FileChannel channel, String fileName) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        header.flip();
+        int version = header.remaining() < HEADER_SIZE || header.getInt() != MAGIC ? -1 : header.getInt();
+        if (version != 1 && version != VERSION) {
+            throw new IOException(fileName + " is not a BlockShuffle stats file (or is from a newer version)");
+        }
+        int recordSize = version == 1 ? V1_RECORD_SIZE : RECORD_SIZE;
+        sawVersion1 |= version == 1;
+        damagedRecords = 0;
+
+        long position = HEADER_SIZE;
+        ByteBuffer buffer = ByteBuffer.allocate(recordSize * 1024);
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) break;
+            buffer.flip();
+            while (buffer.remaining() >= recordSize) {
+                if (!readRecord(buffer, recordSize)) {
+                    BlockShuffle.logger.warning("[Stats] Skipping damaged record in " + fileName + " at offset " + position);
+                    damagedRecords++;
+                    buffer.position(buffer.position() + recordSize);
+                }
+                position += recordSize;
+            }
+            if (buffer.remaining() > 0 && read < buffer.capacity()) break; // Partial record at EOF
+        }
+        return position;
+    }
+
+    private boolean readRecord(ByteBuffer buffer, int recordSize) {
+        int start = buffer.position();
+        crc.reset();
+        crc.update(buffer.slice(start, recordSize - 4));
+        UUID uuid = new UUID(buffer.getLong(), buffer.getLong());
+        PlayerStats stats = recordSize == V1_RECORD_SIZE
+                ? new PlayerStats(buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt())
+                : new PlayerStats(buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt(),
+                        buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+        if (buffer.getInt() != (int) crc.getValue()) {
+            buffer.position(start);
+            return false;
+        }
+        state.put(uuid, stats);
+        return true;
+    }
+
+    private void putRecord(ByteBuffer buffer, UUID uuid, PlayerStats s) {
+        int start = buffer.position();
+        buffer.putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .putInt(s.gamesPlayed())
+                .putInt(s.gamesWon())
+                .putInt(s.skipsBought())
+                .putInt(s.blocksSteppedOn())
+                .putDouble(s.rating())
+                .putDouble(s.ratingDeviation())
+                .putDouble(s.ratingVolatility());
+        crc.reset();
+        crc.update(buffer.slice(start, RECORD_SIZE - 4));
+        buffer.putInt((int) crc.getValue());
+    }
+
+    /**
+     * Copies a file that had damaged records to a .corrupt sibling, once, so whatever can still be
+     * recovered from it survives later rewrites.
+     */
+    private static void keepDamagedCopy(Path file) {
+        Path copy = file.resolveSibling(file.getFileName() + ".corrupt");
+        if (Files.exists(copy)) return;
+        try {
+            Files.copy(file, copy);
+            BlockShuffle.logger.warning("[Stats] Kept a copy of the damaged file as " + copy.getFileName());
+        } catch (IOException e) {
+            BlockShuffle.logger.severe("[Stats] Could not copy damaged " + file.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    private static void writeHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+        channel.write(header, 0);
+        channel.position(HEADER_SIZE);
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
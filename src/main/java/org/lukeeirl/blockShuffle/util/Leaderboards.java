@@ -0,0 +1,104 @@
+package org.lukeeirl.blockShuffle.util;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * One {@link RankedIndex} per stat, kept up to date by {@link StatsManager} as stats are recorded.
+ */
+public class Leaderboards {
+    // Below this many games a player's win rate is too noisy to rank
+    public static final int MIN_GAMES_FOR_WIN_RATE = 5;
+
+    private final Map<Metric, RankedIndex> indexes = new EnumMap<>(Metric.class);
+
+    public enum Metric {
+        WINS("wins", "Games Won"),
+        BLOCKS("blocks", "Blocks Found"),
+        PLAYED("played", "Games Played"),
+        WINRATE("winrate", "Win Rate"),
+        RATING("rating", "Skill Rating");
+
+        private final String key;
+        private final String displayName;
+
+        Metric(String key, String displayName) {
+            this.key = key;
+            this.displayName = displayName;
+        }
+
+        public String key() {
+            return key;
+        }
+
+        public String displayName() {
+            return displayName;
+        }
+
+        /**
+         * @return The player's score, or NaN if they shouldn't be ranked on this metric
+         */
+        public double score(PlayerStats stats) {
+            return switch (this) {
+                case WINS -> stats.gamesWon() > 0 ? stats.gamesWon() : Double.NaN;
+                case BLOCKS -> stats.blocksSteppedOn() > 0 ? stats.blocksSteppedOn() : Double.NaN;
+                case PLAYED -> stats.gamesPlayed() > 0 ? stats.gamesPlayed() : Double.NaN;
+                case WINRATE -> stats.gamesPlayed() >= MIN_GAMES_FOR_WIN_RATE
+                        ? (double) stats.gamesWon() / stats.gamesPlayed() : Double.NaN;
+                case RATING -> stats.isRated() ? stats.rating() : Double.NaN;
+            };
+        }
+
+        public String format(double score) {
+            return switch (this) {
+                case WINRATE -> String.format("%.1f%%", score * 100);
+                case RATING -> String.valueOf(Math.round(score));
+                default -> String.valueOf((long) score);
+            };
+        }
+
+        public static Metric fromKey(String key) {
+            for (Metric metric : values()) {
+                if (metric.key.equalsIgnoreCase(key)) return metric;
+            }
+            return null;
+        }
+    }
+
+    public Leaderboards() {
+        for (Metric metric : Metric.values()) {
+            indexes.put(metric, new RankedIndex());
+        }
+    }
+
+    public void update(UUID uuid, PlayerStats stats) {
+        for (Map.Entry<Metric, RankedIndex> entry : indexes.entrySet()) {
+            double score = entry.getKey().score(stats);
+            if (Double.isNaN(score)) {
+                entry.getValue().remove(uuid);
+            } else {
+                entry.getValue().put(uuid, score);
+            }
+        }
+    }
+
+    /**
+     * @return 1-based rank, or -1 if the player isn't ranked on this metric
+     */
+    public int rank(Metric metric, UUID uuid) {
+        return indexes.get(metric).rank(uuid);
+    }
+
+    /**
+     * @param page 1-based page number
+     */
+    public List<RankedIndex.Entry> page(Metric metric, int page, int pageSize) {
+        return indexes.get(metric).range((page - 1) * pageSize, pageSize);
+    }
+
+    public int size(Metric metric) {
+        return indexes.get(metric).size();
+    }
+}
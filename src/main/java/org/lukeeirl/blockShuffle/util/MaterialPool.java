@@ -0,0 +1,212 @@
+package org.lukeeirl.blockShuffle.util;
+
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.lukeeirl.blockShuffle.BlockShuffle;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * The blocks players can be assigned, compiled once from the materials list in settings.yml.
+ * Invalid names, non-blocks, air and duplicates are dropped (and reported) at compile time.
+ * Optional per-material weights are folded into an alias table (Vose's method), so picking
+ * a block is O(1) and allocation-free however large the pool gets.
+ */
+public class MaterialPool {
+    private final File settingsFile;
+    private final YamlConfiguration settings;
+    private final List<Consumer<MaterialPool>> reloadListeners = new ArrayList<>();
+
+    private Material[] materials = new Material[0];
+    private Set<Material> members = EnumSet.noneOf(Material.class);
+    // Alias table: pick slot i uniformly, keep it with probability[i], otherwise take alias[i]
+    private double[] probability = new double[0];
+    private int[] alias = new int[0];
+    private double[] weights = new double[0];
+    private boolean weighted;
+
+    public MaterialPool(File settingsFile, YamlConfiguration settings) {
+        this.settingsFile = settingsFile;
+        this.settings = settings;
+        compile(settings.getStringList("materials"), settings.getConfigurationSection("materialWeights"));
+    }
+
+    /**
+     * Re-reads the materials list from settings.yml on disk and recompiles the pool.
+     *
+     * @return Number of blocks in the recompiled pool
+     */
+    public int reload() {
+        YamlConfiguration onDisk = YamlConfiguration.loadConfiguration(settingsFile);
+        List<String> names = onDisk.getStringList("materials");
+        ConfigurationSection weights = onDisk.getConfigurationSection("materialWeights");
+        settings.set("materials", names);
+        settings.set("materialWeights", null);
+        if (weights != null) {
+            settings.createSection("materialWeights", weights.getValues(false));
+        }
+        compile(names, weights);
+        for (Consumer<MaterialPool> listener : reloadListeners) {
+            listener.accept(this);
+        }
+        return materials.length;
+    }
+
+    /**
+     * Registers a callback that runs after every {@link #reload()}.
+     *
+     * @param listener Callback receiving the recompiled pool
+     */
+    public void onReload(Consumer<MaterialPool> listener) {
+        reloadListeners.add(listener);
+    }
+
+    private void compile(List<String> names, ConfigurationSection weightSection) {
+        Set<Material> compiled = EnumSet.noneOf(Material.class);
+        List<Material> ordered = new ArrayList<>(names.size());
+        List<Double> weights = new ArrayList<>(names.size());
+        List<String> invalid = new ArrayList<>();
+        int duplicates = 0;
+
+        for (String name : names) {
+            Material material = Material.getMaterial(name);
+            double weight = weightSection != null ? weightSection.getDouble(name, 1.0) : 1.0;
+            if (material == null || !material.isBlock() || material.isAir() || !(weight > 0)) {
+                invalid.add(name);
+            } else if (!compiled.add(material)) {
+                duplicates++;
+            } else {
+                ordered.add(material);
+                weights.add(weight);
+            }
+        }
+
+        if (!invalid.isEmpty()) {
+            BlockShuffle.logger.warning("[Materials] Ignoring " + invalid.size() + " invalid entries: " + String.join(", ", invalid));
+        }
+        if (duplicates > 0) {
+            BlockShuffle.logger.warning("[Materials] Ignoring " + duplicates + " duplicate entries");
+        }
+        if (ordered.isEmpty()) {
+            BlockShuffle.logger.severe("[Materials] No valid blocks in settings.yml, falling back to STONE");
+            ordered.add(Material.STONE);
+            weights.add(1.0);
+            compiled.add(Material.STONE);
+        }
+
+        int size = ordered.size();
+        double[] compiledProbability = new double[size];
+        int[] compiledAlias = new int[size];
+        buildAliasTable(weights, compiledProbability, compiledAlias);
+
+        this.materials = ordered.toArray(new Material[0]);
+        this.members = compiled;
+        this.probability = compiledProbability;
+        this.alias = compiledAlias;
+        this.weights = weights.stream().mapToDouble(Double::doubleValue).toArray();
+        this.weighted = weights.stream().anyMatch(weight -> weight != 1.0);
+        BlockShuffle.logger.info("[Materials] Compiled " + materials.length + " blocks from " + names.size() + " entries");
+    }
+
+    /**
+     * Vose's alias method: splits the weights into equal-width slots that each hold at most two materials.
+     */
+    private static void buildAliasTable(List<Double> weights, double[] probability, int[] alias) {
+        int size = weights.size();
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+
+        double[] scaled = new double[size];
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < size; i++) {
+            scaled[i] = weights.get(i) * size / total;
+            if (scaled[i] < 1.0) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+
+        // Whatever is left is 1.0 give or take floating point error
+        while (largeCount > 0) {
+            int index = large[--largeCount];
+            probability[index] = 1.0;
+            alias[index] = index;
+        }
+        while (smallCount > 0) {
+            int index = small[--smallCount];
+            probability[index] = 1.0;
+            alias[index] = index;
+        }
+    }
+
+    public Material random(Random random) {
+        return materials[randomIndex(random)];
+    }
+
+    /**
+     * Picks a weighted random slot in the pool.
+     *
+     * @param random Random instance for selection
+     * @return Index into the pool, see {@link #get(int)}
+     */
+    public int randomIndex(Random random) {
+        int slot = random.nextInt(materials.length);
+        return random.nextDouble() < probability[slot] ? slot : alias[slot];
+    }
+
+    public Material get(int index) {
+        return materials[index];
+    }
+
+    /**
+     * @return The block's materialWeights entry, 1.0 if it has none
+     */
+    public double weight(int index) {
+        return weights[index];
+    }
+
+    /**
+     * @return Whether any block has a weight other than 1.0
+     */
+    public boolean isWeighted() {
+        return weighted;
+    }
+
+    public boolean contains(Material material) {
+        return members.contains(material);
+    }
+
+    public List<Material> asList() {
+        return List.of(materials);
+    }
+
+    public int size() {
+        return materials.length;
+    }
+}
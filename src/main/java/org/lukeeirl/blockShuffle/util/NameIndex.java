@@ -0,0 +1,200 @@
+package org.lukeeirl.blockShuffle.util;
+
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.plugin.Plugin;
+import org.lukeeirl.blockShuffle.BlockShuffle;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Case-insensitive name to UUID lookup for every player the server has seen, kept current on join.
+ * Replaces scanning Bukkit.getOfflinePlayers(), which builds an object per player ever joined
+ * and can hit disk. Names are persisted to names.txt as appended "uuid name" lines (last line
+ * wins) by a {@link CoalescingWriter}; the file is rewritten once stale lines outnumber live ones.
+ * On first run the index is seeded from the server's own player list. Lookups are main thread only.
+ */
+public class NameIndex {
+    private static final long FLUSH_INTERVAL_MILLIS = 5_000;
+
+    private final Plugin plugin;
+    private final File namesFile;
+    private final Map<String, UUID> byName = new HashMap<>();
+    private final Map<UUID, String> byUuid = new HashMap<>();
+    private final NameTrie trie = new NameTrie();
+    private final CoalescingWriter<UUID, String> writer;
+    // Writer thread only: lines in names.txt (live or superseded) and the players they cover
+    private int linesOnDisk;
+    private final Set<UUID> playersOnDisk = new HashSet<>();
+
+    public NameIndex(Plugin plugin) {
+        this.plugin = plugin;
+        this.namesFile = new File(plugin.getDataFolder(), "names.txt");
+        this.writer = new CoalescingWriter<>("Names", FLUSH_INTERVAL_MILLIS, this::append);
+        load();
+    }
+
+    private void load() {
+        boolean firstRun = !namesFile.exists();
+        writer.supply(this::readFile).whenComplete((loaded, error) -> {
+            if (!plugin.isEnabled()) return;
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                if (error != null) {
+                    BlockShuffle.logger.severe("[Names] Could not read names.txt: " + error.getMessage());
+                    return;
+                }
+                // Anyone recorded while the file was being read is newer than what it says
+                loaded.forEach((uuid, name) -> {
+                    if (!byUuid.containsKey(uuid)) put(uuid, name);
+                });
+                if (firstRun) {
+                    seed();
+                }
+                BlockShuffle.logger.info("[Names] Indexed " + byUuid.size() + " player names");
+            });
+        });
+    }
+
+    /**
+     * One-off import of every player the server already knows about, so upgrading doesn't start from empty.
+     */
+    private void seed() {
+        for (OfflinePlayer player : Bukkit.getOfflinePlayers()) {
+            if (player.getName() != null && !byUuid.containsKey(player.getUniqueId())) {
+                record(player.getUniqueId(), player.getName());
+            }
+        }
+    }
+
+    /**
+     * Remembers a player's current name. Call on join; cheap when the name hasn't changed.
+     */
+    public void record(UUID uuid, String name) {
+        if (name.equals(byUuid.get(uuid))) return;
+        put(uuid, name);
+        writer.submit(uuid, name);
+    }
+
+    /**
+     * @return The UUID of whoever last used this name (any case), or null if nobody has
+     */
+    public UUID lookup(String name) {
+        return byName.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @return The last name seen for this player, or null if they've never joined
+     */
+    public String name(UUID uuid) {
+        return byUuid.get(uuid);
+    }
+
+    /**
+     * @param prefix Case-insensitive start of a name
+     * @param limit Most names to return
+     * @return Known names starting with the prefix, alphabetically
+     */
+    public List<String> complete(String prefix, int limit) {
+        return trie.complete(prefix, limit);
+    }
+
+    public int size() {
+        return byUuid.size();
+    }
+
+    public void shutdown() {
+        writer.shutdown();
+    }
+
+    private void put(UUID uuid, String name) {
+        String previous = byUuid.put(uuid, name);
+        if (previous != null && uuid.equals(byName.get(previous.toLowerCase(Locale.ROOT)))) {
+            byName.remove(previous.toLowerCase(Locale.ROOT));
+            trie.remove(previous);
+        }
+        // Names can be given up and claimed by someone else; the newest owner wins
+        byName.put(name.toLowerCase(Locale.ROOT), uuid);
+        trie.add(name);
+    }
+
+    /**
+     * Runs on the writer thread.
+     */
+    private Map<UUID, String> readFile() {
+        Map<UUID, String> loaded = new HashMap<>();
+        if (!namesFile.exists()) return loaded;
+
+        int lines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(namesFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int space = line.indexOf(' ');
+                if (space <= 0 || space == line.length() - 1) continue;
+                try {
+                    loaded.put(UUID.fromString(line.substring(0, space)), line.substring(space + 1));
+                    lines++;
+                } catch (IllegalArgumentException ignored) {
+                    // A line torn by a crash mid-write
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        linesOnDisk = lines;
+        playersOnDisk.clear();
+        playersOnDisk.addAll(loaded.keySet());
+        return loaded;
+    }
+
+    /**
+     * Writer thread sink: appends the batch, compacting first if the file is mostly superseded lines.
+     */
+    private void append(Map<UUID, String> batch) {
+        try {
+            Files.createDirectories(namesFile.getParentFile().toPath());
+            if (linesOnDisk > 1_000 && linesOnDisk > 2 * playersOnDisk.size()) {
+                compact();
+            }
+            try (BufferedWriter out = Files.newBufferedWriter(namesFile.toPath(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (Map.Entry<UUID, String> entry : batch.entrySet()) {
+                    out.write(entry.getKey() + " " + entry.getValue());
+                    out.newLine();
+                }
+            }
+            linesOnDisk += batch.size();
+            playersOnDisk.addAll(batch.keySet());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void compact() throws IOException {
+        Map<UUID, String> live = readFile();
+        File temp = new File(namesFile.getParentFile(), "names.txt.tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+            for (Map.Entry<UUID, String> entry : live.entrySet()) {
+                out.write(entry.getKey() + " " + entry.getValue());
+                out.newLine();
+            }
+        }
+        Files.move(temp.toPath(), namesFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        linesOnDisk = live.size();
+        BlockShuffle.logger.info("[Names] Compacted names.txt to " + live.size() + " players");
+    }
+}
@@ -0,0 +1,102 @@
+package org.lukeeirl.blockShuffle.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Case-insensitive prefix tree of player names for tab completion. Completing a prefix walks
+ * at most 16 nodes (the longest Minecraft name) and then only visits the names it returns,
+ * so it stays fast however many players the server has seen. Not thread-safe.
+ */
+public class NameTrie {
+    private final Node root = new Node();
+    private int size;
+
+    private static final class Node {
+        // Sorted by key so completions come out in alphabetical order
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        // Display name if a name ends here, otherwise null
+        private String name;
+
+        private Node child(char key) {
+            int slot = Arrays.binarySearch(keys, key);
+            return slot >= 0 ? children[slot] : null;
+        }
+
+        private Node childOrCreate(char key) {
+            int slot = Arrays.binarySearch(keys, key);
+            if (slot >= 0) return children[slot];
+
+            int insertAt = -slot - 1;
+            char[] grownKeys = new char[keys.length + 1];
+            Node[] grownChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, grownKeys, 0, insertAt);
+            System.arraycopy(children, 0, grownChildren, 0, insertAt);
+            System.arraycopy(keys, insertAt, grownKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(children, insertAt, grownChildren, insertAt + 1, children.length - insertAt);
+            grownKeys[insertAt] = key;
+            grownChildren[insertAt] = new Node();
+            keys = grownKeys;
+            children = grownChildren;
+            return grownChildren[insertAt];
+        }
+    }
+
+    /**
+     * Adds a name, or updates its capitalisation if it is already present.
+     */
+    public void add(String name) {
+        Node node = root;
+        for (int i = 0; i < name.length(); i++) {
+            node = node.childOrCreate(Character.toLowerCase(name.charAt(i)));
+        }
+        if (node.name == null) size++;
+        node.name = name;
+    }
+
+    public void remove(String name) {
+        Node node = find(name);
+        if (node != null && node.name != null) {
+            node.name = null;
+            size--;
+        }
+    }
+
+    /**
+     * @param prefix Case-insensitive prefix, may be empty
+     * @param limit Most names to return
+     * @return Matching names in alphabetical order
+     */
+    public List<String> complete(String prefix, int limit) {
+        List<String> matches = new ArrayList<>(Math.min(limit, 16));
+        Node start = find(prefix);
+        if (start != null) {
+            collect(start, matches, limit);
+        }
+        return matches;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private Node find(String key) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(Character.toLowerCase(key.charAt(i)));
+        }
+        return node;
+    }
+
+    private static void collect(Node node, List<String> matches, int limit) {
+        if (matches.size() >= limit) return;
+        if (node.name != null) {
+            matches.add(node.name);
+        }
+        for (int i = 0; i < node.children.length && matches.size() < limit; i++) {
+            collect(node.children[i], matches, limit);
+        }
+    }
+}
@@ -4,12 +4,21 @@ public record PlayerStats(
         int gamesPlayed,
         int gamesWon,
         int skipsBought,
-        int blocksSteppedOn
+        int blocksSteppedOn,
+        double rating,
+        double ratingDeviation,
+        double ratingVolatility
 ) {
     public PlayerStats() { this(0,0,0, 0); }
-    public PlayerStats incrementPlayed() { return new PlayerStats(gamesPlayed+1, gamesWon, skipsBought, blocksSteppedOn); }
-    public PlayerStats incrementWon()    { return new PlayerStats(gamesPlayed, gamesWon+1, skipsBought, blocksSteppedOn); }
-    public PlayerStats addSkips(int n)   { return new PlayerStats(gamesPlayed, gamesWon, skipsBought + n, blocksSteppedOn); }
-    public PlayerStats incrementBlocksSteppedOn() { return new PlayerStats(gamesPlayed, gamesWon, skipsBought, blocksSteppedOn + 1); }
+    public PlayerStats(int gamesPlayed, int gamesWon, int skipsBought, int blocksSteppedOn) {
+        this(gamesPlayed, gamesWon, skipsBought, blocksSteppedOn, Glicko2.DEFAULT_RATING, Glicko2.DEFAULT_DEVIATION, Glicko2.DEFAULT_VOLATILITY);
+    }
+    public PlayerStats incrementPlayed() { return new PlayerStats(gamesPlayed+1, gamesWon, skipsBought, blocksSteppedOn, rating, ratingDeviation, ratingVolatility); }
+    public PlayerStats incrementWon()    { return new PlayerStats(gamesPlayed, gamesWon+1, skipsBought, blocksSteppedOn, rating, ratingDeviation, ratingVolatility); }
+    public PlayerStats addSkips(int n)   { return new PlayerStats(gamesPlayed, gamesWon, skipsBought + n, blocksSteppedOn, rating, ratingDeviation, ratingVolatility); }
+    public PlayerStats incrementBlocksSteppedOn() { return new PlayerStats(gamesPlayed, gamesWon, skipsBought, blocksSteppedOn + 1, rating, ratingDeviation, ratingVolatility); }
+    public PlayerStats withRating(Glicko2.Rating r) { return new PlayerStats(gamesPlayed, gamesWon, skipsBought, blocksSteppedOn, r.rating(), r.deviation(), r.volatility()); }
+    public Glicko2.Rating glickoRating() { return new Glicko2.Rating(rating, ratingDeviation, ratingVolatility); }
+    /** Whether this player has finished at least one rated game */
+    public boolean isRated() { return ratingDeviation < Glicko2.DEFAULT_DEVIATION; }
 }
-
@@ -0,0 +1,191 @@
+package org.lukeeirl.blockShuffle.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Indexable skip list of players ordered by score (highest first, ties broken by UUID).
+ * Each forward link also records how many entries it skips, which makes insert, remove,
+ * rank-of-player and entry-at-rank all O(log n). Not thread-safe.
+ */
+public class RankedIndex {
+    private static final int MAX_LEVEL = 32;
+
+    private final Node head = new Node(null, 0, MAX_LEVEL);
+    private final Map<UUID, Node> nodes = new HashMap<>();
+    private final Random random = new Random();
+    private int level = 1;
+    private int size;
+
+    public record Entry(UUID uuid, double score) {}
+
+    private static final class Node {
+        private final UUID uuid;
+        private final double score;
+        private final Node[] next;
+        // Number of entries between this node and next[i], counting next[i] itself
+        private final int[] span;
+
+        private Node(UUID uuid, double score, int levels) {
+            this.uuid = uuid;
+            this.score = score;
+            this.next = new Node[levels];
+            this.span = new int[levels];
+        }
+    }
+
+    /**
+     * Adds a player or moves them to their new score.
+     */
+    public void put(UUID uuid, double score) {
+        Node existing = nodes.get(uuid);
+        if (existing != null) {
+            if (existing.score == score) return;
+            unlink(existing);
+        }
+        insert(uuid, score);
+    }
+
+    public void remove(UUID uuid) {
+        Node existing = nodes.get(uuid);
+        if (existing != null) {
+            unlink(existing);
+        }
+    }
+
+    /**
+     * @return 1-based position of the player, or -1 if they aren't ranked
+     */
+    public int rank(UUID uuid) {
+        Node target = nodes.get(uuid);
+        if (target == null) return -1;
+
+        int rank = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && (x.next[i] == target || before(x.next[i], target.score, target.uuid))) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+            if (x == target) return rank;
+        }
+        return -1;
+    }
+
+    /**
+     * Entries from a 0-based offset, best first.
+     */
+    public List<Entry> range(int offset, int limit) {
+        List<Entry> entries = new ArrayList<>(Math.max(0, Math.min(limit, size - offset)));
+        if (offset < 0 || offset >= size || limit <= 0) return entries;
+
+        Node x = head;
+        int traversed = 0;
+        int wanted = offset + 1;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= wanted) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+            if (traversed == wanted) break;
+        }
+
+        for (; x != null && entries.size() < limit; x = x.next[0]) {
+            entries.add(new Entry(x.uuid, x.score));
+        }
+        return entries;
+    }
+
+    public Double score(UUID uuid) {
+        Node node = nodes.get(uuid);
+        return node == null ? null : node.score;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void insert(UUID uuid, double score) {
+        Node[] update = new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && before(x.next[i], score, uuid)) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        int nodeLevel = randomLevel();
+        if (nodeLevel > level) {
+            for (int i = level; i < nodeLevel; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                head.span[i] = size;
+            }
+            level = nodeLevel;
+        }
+
+        Node node = new Node(uuid, score, nodeLevel);
+        for (int i = 0; i < nodeLevel; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = (rank[0] - rank[i]) + 1;
+        }
+        for (int i = nodeLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+
+        nodes.put(uuid, node);
+        size++;
+    }
+
+    private void unlink(Node target) {
+        Node[] update = new Node[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && before(x.next[i], target.score, target.uuid)) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == target) {
+                update[i].span[i] += target.span[i] - 1;
+                update[i].next[i] = target.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+
+        nodes.remove(target.uuid);
+        size--;
+    }
+
+    /**
+     * Whether a node sorts ahead of the given score and UUID.
+     */
+    private static boolean before(Node node, double score, UUID uuid) {
+        return node.score > score || (node.score == score && node.uuid.compareTo(uuid) < 0);
+    }
+
+    private int randomLevel() {
+        // Geometric with p = 1/4, like Redis' sorted sets
+        int nodeLevel = 1;
+        while (nodeLevel < MAX_LEVEL && (random.nextInt() & 3) == 0) {
+            nodeLevel++;
+        }
+        return nodeLevel;
+    }
+}
@@ -0,0 +1,125 @@
+package org.lukeeirl.blockShuffle.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * A shuffled permutation of pool indices that is handed out one at a time.
+ * Nothing repeats until every index has been drawn, and the next cycle never
+ * starts with the index that ended the previous one. With weights, each cycle is a
+ * weighted random order (Efraimidis-Spirakis): every index still comes out once per
+ * cycle, but heavier ones tend to come out earlier, so over a game that ends mid-cycle
+ * they turn up more often.
+ */
+public final class ShuffleBag {
+    private final int[] order;
+    // Weight per index, or null for a uniform shuffle
+    private final double[] weights;
+    private int cursor;
+    private int last = -1;
+
+    public ShuffleBag(int size) {
+        this(size, null);
+    }
+
+    /**
+     * @param weights Positive weight per index, or null for a uniform shuffle
+     */
+    public ShuffleBag(int size, double[] weights) {
+        this.order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        this.weights = weights;
+        this.cursor = size; // Shuffle on first draw
+    }
+
+    public int draw(Random random) {
+        if (cursor == order.length) {
+            shuffle(random);
+        }
+        last = order[cursor++];
+        return last;
+    }
+
+    public int size() {
+        return order.length;
+    }
+
+    public void reset() {
+        cursor = order.length;
+        last = -1;
+    }
+
+    /**
+     * Drops indices from the bag without restarting its cycle: whatever has already been drawn
+     * this cycle stays drawn, and the rest keep their place in line.
+     *
+     * @param remap New index for each current index, or -1 to drop it; survivors must map onto 0..n-1
+     * @return A bag over the surviving indices
+     */
+    public ShuffleBag narrow(int[] remap) {
+        int size = 0;
+        for (int index : remap) {
+            if (index >= 0) size++;
+        }
+        double[] narrowedWeights = null;
+        if (weights != null) {
+            narrowedWeights = new double[size];
+            for (int i = 0; i < remap.length; i++) {
+                if (remap[i] >= 0) narrowedWeights[remap[i]] = weights[i];
+            }
+        }
+        ShuffleBag narrowed = new ShuffleBag(size, narrowedWeights);
+        int drawn = 0;
+        int count = 0;
+        for (int i = 0; i < order.length; i++) {
+            int index = remap[order[i]];
+            if (index < 0) continue;
+            narrowed.order[count++] = index;
+            if (i < cursor) drawn++;
+        }
+        narrowed.cursor = drawn;
+        narrowed.last = last >= 0 ? remap[last] : -1;
+        return narrowed;
+    }
+
+    private void shuffle(Random random) {
+        if (weights == null) {
+            // Fisher-Yates, in place
+            for (int i = order.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+        } else {
+            weightedShuffle(random);
+        }
+        // Avoid handing out the same block twice in a row across the cycle boundary
+        if (order.length > 1 && order[0] == last) {
+            int j = 1 + random.nextInt(order.length - 1);
+            order[0] = order[j];
+            order[j] = last;
+        }
+        cursor = 0;
+    }
+
+    /**
+     * Orders the indices by an exponential key with rate equal to their weight, smallest first,
+     * which is the same as repeatedly drawing weighted without replacement.
+     */
+    private void weightedShuffle(Random random) {
+        double[] keys = new double[order.length];
+        Integer[] sorted = new Integer[order.length];
+        for (int i = 0; i < order.length; i++) {
+            keys[i] = -Math.log(1.0 - random.nextDouble()) / weights[i];
+            sorted[i] = i;
+        }
+        Arrays.sort(sorted, Comparator.comparingDouble(index -> keys[index]));
+        for (int i = 0; i < order.length; i++) {
+            order[i] = sorted[i];
+        }
+    }
+}
@@ -1,49 +1,90 @@
 package org.lukeeirl.blockShuffle.util;
 
-import org.bukkit.Bukkit;
 import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Purchased skip balances. Balances live in memory, so checking or spending a skip is a map read
+ * and a compare-and-set, and they are safe to read from any thread. skips.yml is written behind
+ * by a {@link CoalescingWriter}: a burst of changes (say /giveskips to a whole lobby) becomes one
+ * save. The writer is handed the live counter, so whatever it saves is the latest balance.
+ */
 public class SkipManager {
+    private static final long FLUSH_INTERVAL_MILLIS = 2_000;
+
     private final File skipsFile;
+    // Only touched by the writer thread once loaded
     private final YamlConfiguration config;
     private final StatsManager stats;
+    private final Map<UUID, AtomicInteger> balances = new ConcurrentHashMap<>();
+    private final CoalescingWriter<UUID, AtomicInteger> writer;
 
     public SkipManager(File skipsFile, YamlConfiguration config, StatsManager stats) {
         this.skipsFile = skipsFile;
         this.config = config;
         this.stats = stats;
+        for (String key : config.getKeys(false)) {
+            balances.put(UUID.fromString(key), new AtomicInteger(config.getInt(key, 0)));
+        }
+        this.writer = new CoalescingWriter<>("Skips", FLUSH_INTERVAL_MILLIS, this::save);
     }
 
     public int getPurchasedSkips(UUID uuid) {
-        return config.getInt(uuid.toString(), 0);
+        AtomicInteger balance = balances.get(uuid);
+        return balance == null ? 0 : balance.get();
     }
 
     public void addSkips(UUID uuid, int amount) {
-        int current = getPurchasedSkips(uuid);
-        config.set(uuid.toString(), Math.max(current + amount, 0));
+        AtomicInteger balance = balances.computeIfAbsent(uuid, id -> new AtomicInteger());
+        balance.accumulateAndGet(amount, (current, delta) -> Math.max(current + delta, 0));
         stats.recordSkips(uuid, amount);
-        stats.save(uuid);
-        save();
+        writer.submit(uuid, balance);
     }
 
-    public void consumeSkip(UUID uuid) {
-        int current = getPurchasedSkips(uuid);
-        if (current > 0) {
-            config.set(uuid.toString(), current - 1);
-            save();
-        }
+    /**
+     * Spends one purchased skip if the player has any.
+     *
+     * @return Whether a skip was spent
+     */
+    public boolean consumeSkip(UUID uuid) {
+        AtomicInteger balance = balances.get(uuid);
+        if (balance == null) return false;
+
+        int current;
+        do {
+            current = balance.get();
+            if (current <= 0) return false;
+        } while (!balance.compareAndSet(current, current - 1));
+
+        writer.submit(uuid, balance);
+        return true;
     }
 
-    private void save() {
+    /**
+     * Writes anything pending and stops the writer. Call from onDisable.
+     */
+    public void shutdown() {
+        writer.shutdown();
+    }
+
+    /**
+     * Writer thread sink.
+     */
+    private void save(Map<UUID, AtomicInteger> batch) {
+        for (Map.Entry<UUID, AtomicInteger> entry : batch.entrySet()) {
+            config.set(entry.getKey().toString(), entry.getValue().get());
+        }
         try {
             config.save(skipsFile);
         } catch (IOException e) {
-            Bukkit.getLogger().severe("Failed to save skips.yml");
+            throw new UncheckedIOException("Failed to save skips.yml", e);
         }
     }
 }
-
@@ -0,0 +1,188 @@
+package org.lukeeirl.blockShuffle.util;
+
+import org.lukeeirl.blockShuffle.BlockShuffle;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Stats in an embedded SQLite database, one row per player. A batch is a single transaction
+ * of prepared upserts, so saving touches only the rows that changed.
+ */
+public class SqliteStatsStore implements StatsStore {
+    private static final String UPSERT = """
+            INSERT INTO player_stats (uuid, games_played, games_won, skips_bought, blocks_stepped_on,
+                                      rating, rating_deviation, rating_volatility)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT(uuid) DO UPDATE SET
+                games_played = excluded.games_played,
+                games_won = excluded.games_won,
+                skips_bought = excluded.skips_bought,
+                blocks_stepped_on = excluded.blocks_stepped_on,
+                rating = excluded.rating,
+                rating_deviation = excluded.rating_deviation,
+                rating_volatility = excluded.rating_volatility""";
+    private static final String SELECT_ALL = "SELECT uuid, games_played, games_won, skips_bought, blocks_stepped_on,"
+            + " rating, rating_deviation, rating_volatility FROM player_stats";
+    // Added after the table first shipped; older databases get them on open
+    private static final String[] RATING_COLUMNS = {
+            "rating REAL NOT NULL DEFAULT " + Glicko2.DEFAULT_RATING,
+            "rating_deviation REAL NOT NULL DEFAULT " + Glicko2.DEFAULT_DEVIATION,
+            "rating_volatility REAL NOT NULL DEFAULT " + Glicko2.DEFAULT_VOLATILITY
+    };
+    private static final String SELECT_ONE = SELECT_ALL + " WHERE uuid = ?";
+    // Keyset paging on the primary key; every UUID sorts after ""
+    private static final String SELECT_PAGE = SELECT_ALL + " WHERE uuid > ? ORDER BY uuid LIMIT ?";
+
+    private final Connection connection;
+    private final PreparedStatement upsert;
+    private final PreparedStatement selectOne;
+    private final PreparedStatement selectPage;
+
+    public SqliteStatsStore(File databaseFile) throws SQLException {
+        try {
+            // The driver comes from the plugin's library loader, which DriverManager doesn't scan
+            Class.forName("org.sqlite.JDBC");
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("SQLite driver not found", e);
+        }
+
+        this.connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA journal_mode=WAL");
+            statement.execute("PRAGMA synchronous=NORMAL");
+            statement.execute("""
+                    CREATE TABLE IF NOT EXISTS player_stats (
+                        uuid TEXT PRIMARY KEY,
+                        games_played INTEGER NOT NULL DEFAULT 0,
+                        games_won INTEGER NOT NULL DEFAULT 0,
+                        skips_bought INTEGER NOT NULL DEFAULT 0,
+                        blocks_stepped_on INTEGER NOT NULL DEFAULT 0
+                    )""");
+            addMissingColumns(statement);
+        }
+        this.upsert = connection.prepareStatement(UPSERT);
+        this.selectOne = connection.prepareStatement(SELECT_ONE);
+        this.selectPage = connection.prepareStatement(SELECT_PAGE);
+    }
+
+    private static void addMissingColumns(Statement statement) throws SQLException {
+        Set<String> existing = new HashSet<>();
+        try (ResultSet columns = statement.executeQuery("PRAGMA table_info(player_stats)")) {
+            while (columns.next()) {
+                existing.add(columns.getString("name"));
+            }
+        }
+        for (String column : RATING_COLUMNS) {
+            if (!existing.contains(column.substring(0, column.indexOf(' ')))) {
+                statement.execute("ALTER TABLE player_stats ADD COLUMN " + column);
+            }
+        }
+    }
+
+    @Override
+    public Map<UUID, PlayerStats> loadAll() {
+        Map<UUID, PlayerStats> all = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(SELECT_ALL)) {
+            while (rows.next()) {
+                all.put(UUID.fromString(rows.getString(1)), read(rows));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not load stats", e);
+        }
+        return all;
+    }
+
+    @Override
+    public LinkedHashMap<UUID, PlayerStats> loadPage(UUID after, int limit) {
+        LinkedHashMap<UUID, PlayerStats> page = new LinkedHashMap<>();
+        try {
+            selectPage.setString(1, after == null ? "" : after.toString());
+            selectPage.setInt(2, limit);
+            try (ResultSet rows = selectPage.executeQuery()) {
+                while (rows.next()) {
+                    page.put(UUID.fromString(rows.getString(1)), read(rows));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read stats", e);
+        }
+        return page;
+    }
+
+    @Override
+    public PlayerStats load(UUID uuid) {
+        try {
+            selectOne.setString(1, uuid.toString());
+            try (ResultSet rows = selectOne.executeQuery()) {
+                return rows.next() ? read(rows) : null;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not load stats for " + uuid, e);
+        }
+    }
+
+    @Override
+    public void saveBatch(Map<UUID, PlayerStats> batch) {
+        try {
+            connection.setAutoCommit(false);
+            for (Map.Entry<UUID, PlayerStats> entry : batch.entrySet()) {
+                PlayerStats s = entry.getValue();
+                upsert.setString(1, entry.getKey().toString());
+                upsert.setInt(2, s.gamesPlayed());
+                upsert.setInt(3, s.gamesWon());
+                upsert.setInt(4, s.skipsBought());
+                upsert.setInt(5, s.blocksSteppedOn());
+                upsert.setDouble(6, s.rating());
+                upsert.setDouble(7, s.ratingDeviation());
+                upsert.setDouble(8, s.ratingVolatility());
+                upsert.addBatch();
+            }
+            upsert.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            try {
+                upsert.clearBatch();
+                connection.rollback();
+            } catch (SQLException rollbackError) {
+                e.addSuppressed(rollbackError);
+            }
+            throw new IllegalStateException("Could not save " + batch.size() + " stats rows", e);
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException ignored) {
+                // Connection is broken; the next batch will fail and be retried
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            upsert.close();
+            selectOne.close();
+            selectPage.close();
+            connection.close();
+        } catch (SQLException e) {
+            BlockShuffle.logger.warning("[Stats] Error closing stats database: " + e.getMessage());
+        }
+    }
+
+    private static PlayerStats read(ResultSet row) throws SQLException {
+        return new PlayerStats(row.getInt(2), row.getInt(3), row.getInt(4), row.getInt(5),
+                row.getDouble(6), row.getDouble(7), row.getDouble(8));
+    }
+}
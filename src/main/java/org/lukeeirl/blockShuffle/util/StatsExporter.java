@@ -0,0 +1,197 @@
+package org.lukeeirl.blockShuffle.util;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.lukeeirl.blockShuffle.BlockShuffle;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
+
+/**
+ * Writes every player's stats and skip balance to plugins/BlockShuffle/exports as NDJSON or CSV.
+ * Rows are streamed from the {@link StatsStore} on the stats writer thread into a fixed 64 KiB
+ * buffer, so memory use doesn't grow with the number of players and the main thread only starts
+ * the export and receives the summary. The pass runs in slices (see
+ * {@link StatsManager#forEachStored}), so stat saves and loads keep flowing while it runs. The file appears under its final name only once
+ * it is complete.
+ */
+public class StatsExporter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Pattern SAFE_NAME = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    private final Plugin plugin;
+    private final StatsManager stats;
+    private final SkipManager skipManager;
+    private boolean running;
+
+    public enum Format {
+        NDJSON, CSV;
+
+        /**
+         * @return The format implied by the file extension, or null if it isn't one we write
+         */
+        public static Format fromFileName(String fileName) {
+            String lower = fileName.toLowerCase();
+            if (lower.endsWith(".csv")) return CSV;
+            if (lower.endsWith(".ndjson") || lower.endsWith(".jsonl")) return NDJSON;
+            return null;
+        }
+    }
+
+    public record Result(File file, long rows, long bytes, long millis) {
+        public long rowsPerSecond() {
+            return millis == 0 ? rows * 1000 : rows * 1000 / millis;
+        }
+    }
+
+    public StatsExporter(Plugin plugin, StatsManager stats, SkipManager skipManager) {
+        this.plugin = plugin;
+        this.stats = stats;
+        this.skipManager = skipManager;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return Whether the name can be used for an export file (no directories, known extension)
+     */
+    public static boolean isValidFileName(String fileName) {
+        return SAFE_NAME.matcher(fileName).matches() && !fileName.startsWith(".") && Format.fromFileName(fileName) != null;
+    }
+
+    /**
+     * Starts an export. Call from the main thread.
+     *
+     * @param fileName File name inside the exports folder, see {@link #isValidFileName}
+     * @param onDone Runs on the main thread with the result, or with the error if the export failed
+     * @return False if an export is already running
+     */
+    public boolean export(String fileName, BiConsumer<Result, Throwable> onDone) {
+        if (running) return false;
+        running = true;
+
+        Format format = Format.fromFileName(fileName);
+        File folder = new File(plugin.getDataFolder(), "exports");
+        File target = new File(folder, fileName);
+        File partial = new File(folder, fileName + ".part");
+        long start = System.nanoTime();
+
+        ExportWriter out = new ExportWriter(partial);
+        if (format == Format.CSV) {
+            out.write("uuid,gamesPlayed,gamesWon,blocksFound,skipsBought,skipsRemaining,rating,ratingDeviation\n");
+        }
+        stats.forEachStored((uuid, ps) -> {
+            // Skip balances are in memory and safe to read from the writer thread
+            int remaining = skipManager.getPurchasedSkips(uuid);
+            if (format == Format.CSV) {
+                out.write(uuid + "," + ps.gamesPlayed() + "," + ps.gamesWon() + "," + ps.blocksSteppedOn() + ","
+                        + ps.skipsBought() + "," + remaining + "," + Math.round(ps.rating()) + "," + Math.round(ps.ratingDeviation()) + "\n");
+            } else {
+                out.write("{\"uuid\":\"" + uuid + "\",\"gamesPlayed\":" + ps.gamesPlayed() + ",\"gamesWon\":" + ps.gamesWon()
+                        + ",\"blocksFound\":" + ps.blocksSteppedOn() + ",\"skipsBought\":" + ps.skipsBought()
+                        + ",\"skipsRemaining\":" + remaining + ",\"rating\":" + Math.round(ps.rating())
+                        + ",\"ratingDeviation\":" + Math.round(ps.ratingDeviation()) + "}\n");
+            }
+            out.rows++;
+        }).handle((ignored, error) -> {
+            Throwable failure = error;
+            if (failure == null) {
+                try {
+                    out.close();
+                    Files.move(partial.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException | UncheckedIOException e) {
+                    failure = e;
+                }
+            }
+            if (failure != null) {
+                out.abandon();
+                partial.delete();
+            }
+
+            Result result = failure == null ? new Result(target, out.rows, out.bytes, (System.nanoTime() - start) / 1_000_000) : null;
+            if (result != null) {
+                BlockShuffle.logger.info("[Export] Wrote " + result.rows() + " players to " + target.getName() + " in "
+                        + result.millis() + "ms (" + result.rowsPerSecond() + " rows/s)");
+            } else {
+                BlockShuffle.logger.severe("[Export] Export to " + fileName + " failed: " + failure);
+            }
+            Throwable finalFailure = failure;
+            if (plugin.isEnabled()) {
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    running = false;
+                    onDone.accept(result, finalFailure);
+                });
+            }
+            return null;
+        });
+        return true;
+    }
+
+    /**
+     * Row sink used only on the stats writer thread (the file is opened there too, on the first flush).
+     * Rows are ASCII, so they are copied into the buffer byte for byte and written out whenever it fills.
+     */
+    private static final class ExportWriter {
+        private final File file;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private FileChannel channel;
+        private long rows;
+        private long bytes;
+
+        private ExportWriter(File file) {
+            this.file = file;
+        }
+
+        private void write(String row) {
+            byte[] encoded = row.getBytes(StandardCharsets.US_ASCII);
+            try {
+                if (buffer.remaining() < encoded.length) {
+                    drain();
+                }
+                buffer.put(encoded);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            bytes += encoded.length;
+        }
+
+        private void drain() throws IOException {
+            if (channel == null) {
+                Files.createDirectories(file.getParentFile().toPath());
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void close() throws IOException {
+            drain();
+            channel.force(false);
+            channel.close();
+        }
+
+        private void abandon() {
+            if (channel == null) return;
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Already failing; the partial file is deleted next
+            }
+        }
+    }
+}
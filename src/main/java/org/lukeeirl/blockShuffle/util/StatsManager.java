@@ -1,86 +1,398 @@
 package org.lukeeirl.blockShuffle.util;
 
-import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.Bukkit;
 import org.bukkit.plugin.Plugin;
 import org.lukeeirl.blockShuffle.BlockShuffle;
 
 import java.io.File;
 import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
+/**
+ * Player stats, cached on the main thread and persisted to a {@link StatsStore} behind the scenes.
+ * The store is opened and read on the stats writer thread, so enabling the plugin doesn't parse
+ * every player ever seen. Players are loaded on demand (on join via {@link #prefetch}, for /stats
+ * via {@link #getAsync}) into an LRU cache bounded by statsCacheSize. Recording a stat only
+ * updates the cache and queues the new value with a {@link CoalescingWriter}. Recording for a
+ * player who isn't cached (say /giveskips to someone offline) loads them in the background first
+ * and applies the change when they arrive; the main thread never waits on the store. An evicted player's
+ * latest value stays queued there until written, so nothing is lost when they drop out of the cache.
+ * {@link Leaderboards} are built from one pass over the store and then kept current on every change.
+ * Skill ratings are stored alongside the other stats and updated per finished game by {@link #recordRatings}.
+ */
 public class StatsManager {
+    private static final long FLUSH_INTERVAL_MILLIS = 5_000;
+    // Players visited per writer task during a full pass, so loads and flushes get a turn in between
+    private static final int PASS_SLICE_SIZE = 500;
 
-    private final File statsFile;
-    private final YamlConfiguration config;
-    private final Map<UUID, PlayerStats> cache = new HashMap<>();
-
-    public StatsManager(Plugin plugin) {
-        this.statsFile = new File(plugin.getDataFolder(), "stats.yml");
-        this.config = YamlConfiguration.loadConfiguration(statsFile);
-        loadAllStats();
-    }
-
-    private void loadAllStats() {
-        for (String key : config.getKeys(false)) {
-            UUID uuid = UUID.fromString(key);
-            ConfigurationSection sec = config.getConfigurationSection(key);
-            if (sec != null) {
-                cache.put(uuid, new PlayerStats(
-                        sec.getInt("gamesPlayed", 0),
-                        sec.getInt("gamesWon", 0),
-                        sec.getInt("skipsBought", 0),
-                        sec.getInt("blocksSteppedOn", 0)
-                ));
+    private final Plugin plugin;
+    private final Map<UUID, PlayerStats> cache;
+    private final CoalescingWriter<UUID, PlayerStats> writer;
+    // Opened by the writer thread and only ever used there
+    private StatsStore store;
+    // Null until the first full pass over the store finishes
+    private Leaderboards leaderboards;
+    // Changes recorded while that pass runs, re-applied once it is swapped in
+    private final Map<UUID, PlayerStats> changedDuringBuild = new HashMap<>();
+
+    /**
+     * @param plugin Owning plugin, for the data folder and scheduler
+     * @param backend statsBackend setting: yaml, sqlite or journal
+     * @param cacheSize Most players kept in memory at once
+     */
+    public StatsManager(Plugin plugin, String backend, int cacheSize) {
+        this.plugin = plugin;
+        int maxCached = Math.max(16, cacheSize);
+        this.cache = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, PlayerStats> eldest) {
+                return size() > maxCached;
+            }
+        };
+        this.writer = new CoalescingWriter<>("Stats", FLUSH_INTERVAL_MILLIS, batch -> store.saveBatch(batch));
+        // Queued ahead of the first flush, so the store is always open by the time the sink runs
+        writer.execute(() -> {
+            long start = System.nanoTime();
+            this.store = openStore(plugin.getDataFolder(), backend);
+            BlockShuffle.logger.info("[Stats] Opened the " + backend + " store in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        });
+        buildLeaderboards();
+    }
+
+    /**
+     * Builds the leaderboards from one pass over the store on the writer thread, then hands them to the main thread.
+     * After that they are updated in place as stats are recorded.
+     */
+    private void buildLeaderboards() {
+        long start = System.nanoTime();
+        // Only touched on the writer thread until it is handed over
+        Leaderboards built = new Leaderboards();
+        forEachStored(built::update).whenComplete((ignored, error) -> {
+            if (!plugin.isEnabled()) return;
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                if (error != null) {
+                    BlockShuffle.logger.severe("[Stats] Could not build leaderboards: " + error.getMessage());
+                    return;
+                }
+                BlockShuffle.logger.info("[Stats] Built leaderboards in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+                changedDuringBuild.forEach(built::update);
+                changedDuringBuild.clear();
+                this.leaderboards = built;
+            });
+        });
+    }
+
+    private static StatsStore openStore(File dataFolder, String backend) {
+        File yamlFile = new File(dataFolder, "stats.yml");
+        StatsStore store;
+        try {
+            if (backend.equalsIgnoreCase("sqlite")) {
+                store = new SqliteStatsStore(new File(dataFolder, "stats.db"));
+            } else if (backend.equalsIgnoreCase("journal")) {
+                store = new JournalStatsStore(dataFolder);
+            } else {
+                return new YamlStatsStore(yamlFile);
+            }
+        } catch (SQLException | IOException e) {
+            BlockShuffle.logger.severe("[Stats] Could not open the " + backend + " store, falling back to stats.yml: " + e.getMessage());
+            return new YamlStatsStore(yamlFile);
+        }
+
+        if (yamlFile.exists()) {
+            try {
+                migrate(yamlFile, store);
+            } catch (RuntimeException e) {
+                BlockShuffle.logger.severe("[Stats] Migrating stats.yml failed, staying on stats.yml: " + e.getMessage());
+                store.close();
+                return new YamlStatsStore(yamlFile);
             }
         }
+        return store;
+    }
+
+    /**
+     * One-shot import of stats.yml into the new store. The file is renamed afterwards so it only ever runs once.
+     */
+    private static void migrate(File yamlFile, StatsStore target) {
+        long start = System.nanoTime();
+        Map<UUID, PlayerStats> existing = new YamlStatsStore(yamlFile).loadAll();
+        target.saveBatch(existing);
+
+        File migrated = new File(yamlFile.getParentFile(), yamlFile.getName() + ".migrated");
+        if (!yamlFile.renameTo(migrated)) {
+            BlockShuffle.logger.warning("[Stats] Migrated stats.yml but could not rename it; delete it to stop re-importing");
+        }
+        BlockShuffle.logger.info("[Stats] Migrated " + existing.size() + " players from stats.yml in "
+                + (System.nanoTime() - start) / 1_000_000 + "ms");
     }
 
     public void recordPlayed(UUID uuid) {
-        PlayerStats old = get(uuid);
-        PlayerStats updated = old.incrementPlayed();
-        cache.put(uuid, updated);
-        save(uuid);
+        modify(uuid, PlayerStats::incrementPlayed);
     }
 
     public void recordWin(UUID uuid) {
-        PlayerStats old = get(uuid);
-        PlayerStats updated = old.incrementWon();
-        cache.put(uuid, updated);
-        save(uuid);
+        modify(uuid, PlayerStats::incrementWon);
     }
 
     public void recordSkips(UUID uuid, int n) {
-        PlayerStats old = get(uuid);
-        PlayerStats updated = old.addSkips(n);
-        cache.put(uuid, updated);
-        save(uuid);
+        modify(uuid, stats -> stats.addSkips(n));
     }
 
     public void recordBlockSteppedOn(UUID uuid) {
-        PlayerStats old = get(uuid);
-        PlayerStats updated = old.incrementBlocksSteppedOn();
-        cache.put(uuid, updated);
-        save(uuid);
+        modify(uuid, PlayerStats::incrementBlocksSteppedOn);
+    }
+
+    /**
+     * Records a found block for several players at once.
+     *
+     * @param uuids Players who stood on their block
+     */
+    public void recordBlocksSteppedOn(Collection<UUID> uuids) {
+        withStats(uuids, current -> current.forEach((uuid, stats) -> update(uuid, stats.incrementBlocksSteppedOn())));
+    }
+
+    /**
+     * Updates the Glicko-2 rating of everyone in a finished game from their placements.
+     * The whole game is rated as one batch off the main thread, and the new ratings are queued
+     * together so they reach the store in a single write.
+     */
+    public void recordRatings(GameRecord game) {
+        Map<UUID, Integer> placements = game.placements();
+        // Nothing to learn from a game where everyone tied, e.g. one stopped before anyone was out
+        if (new HashSet<>(placements.values()).size() < 2) return;
+
+        withStats(placements.keySet(), current -> {
+            Map<UUID, Glicko2.Rating> before = new HashMap<>(current.size());
+            current.forEach((uuid, stats) -> before.put(uuid, stats.glickoRating()));
+
+            CompletableFuture.supplyAsync(() -> Glicko2.rateGame(before, placements)).whenComplete((after, error) -> {
+                if (!plugin.isEnabled()) return;
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    if (error != null) {
+                        BlockShuffle.logger.severe("[Stats] Could not rate game " + game.gameInstanceId() + ": " + error.getMessage());
+                        return;
+                    }
+                    // Applied to the current stats, so anything recorded while rating isn't lost
+                    withStats(after.keySet(), latest -> {
+                        Map<UUID, PlayerStats> batch = new HashMap<>(latest.size());
+                        latest.forEach((uuid, stats) -> {
+                            PlayerStats updated = stats.withRating(after.get(uuid));
+                            remember(uuid, updated);
+                            batch.put(uuid, updated);
+                        });
+                        writer.submitAll(batch);
+                    });
+                });
+            });
+        });
+    }
+
+    /**
+     * Applies a change to a player's stats, loading them in the background first if they aren't cached.
+     */
+    private void modify(UUID uuid, UnaryOperator<PlayerStats> change) {
+        PlayerStats cached = cache.get(uuid);
+        if (cached != null) {
+            update(uuid, change.apply(cached));
+            return;
+        }
+        withStats(List.of(uuid), current -> update(uuid, change.apply(current.get(uuid))));
+    }
+
+    /**
+     * Runs an action with the current stats of every player given: right away if they are all
+     * cached, otherwise on the main thread once the missing ones have loaded. Loads for one player
+     * complete in the order they were asked for, so changes queued this way apply in order.
+     */
+    private void withStats(Collection<UUID> uuids, Consumer<Map<UUID, PlayerStats>> action) {
+        Map<UUID, PlayerStats> current = new HashMap<>(uuids.size());
+        List<UUID> missing = new ArrayList<>();
+        for (UUID uuid : uuids) {
+            PlayerStats cached = cache.get(uuid);
+            if (cached != null) {
+                current.put(uuid, cached);
+            } else {
+                missing.add(uuid);
+            }
+        }
+        if (missing.isEmpty()) {
+            action.accept(current);
+            return;
+        }
+
+        loadAsync(missing, loaded -> {
+            // The ones that were cached may have changed while the others loaded
+            for (Map.Entry<UUID, PlayerStats> entry : current.entrySet()) {
+                entry.setValue(cache.getOrDefault(entry.getKey(), entry.getValue()));
+            }
+            current.putAll(loaded);
+            action.accept(current);
+        });
+    }
+
+    /**
+     * Loads a player's stats off the main thread.
+     *
+     * @param onLoaded Runs on the main thread with the player's stats
+     */
+    public void getAsync(UUID uuid, Consumer<PlayerStats> onLoaded) {
+        PlayerStats cached = cache.get(uuid);
+        if (cached != null) {
+            onLoaded.accept(cached);
+            return;
+        }
+        loadAsync(List.of(uuid), loaded -> onLoaded.accept(loaded.get(uuid)));
+    }
+
+    /**
+     * Warms the cache for players who are about to need their stats, e.g. on join.
+     */
+    public void prefetch(Collection<UUID> uuids) {
+        List<UUID> missing = new ArrayList<>();
+        for (UUID uuid : uuids) {
+            if (!cache.containsKey(uuid)) {
+                missing.add(uuid);
+            }
+        }
+        if (!missing.isEmpty()) {
+            loadAsync(missing, loaded -> { });
+        }
     }
 
-    public PlayerStats get(UUID uuid) {
-        return cache.computeIfAbsent(uuid, id -> new PlayerStats());
+    /**
+     * Streams every stored player through an action, one at a time, after writing anything pending.
+     * The store is read in keyset pages of {@value #PASS_SLICE_SIZE} players (one query each on
+     * SQLite), each page its own writer task, so loads and flushes queued meanwhile run between
+     * pages and only one page is ever held in memory. Each player is visited with their latest
+     * value, including anything not yet written.
+     *
+     * @param action Runs on the writer thread, not the main thread
+     * @return Completes (on the writer thread) once every player has been visited
+     */
+    public CompletableFuture<Void> forEachStored(BiConsumer<UUID, PlayerStats> action) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        writer.supplyFlushed(() -> store.loadPage(null, PASS_SLICE_SIZE)).whenComplete((page, error) -> {
+            if (error != null) {
+                done.completeExceptionally(error);
+            } else {
+                visitPage(page, action, done);
+            }
+        });
+        return done;
     }
 
-    public void save(UUID uuid) {
-        PlayerStats s = cache.get(uuid);
-        config.set(uuid + ".gamesPlayed", s.gamesPlayed());
-        config.set(uuid + ".gamesWon",    s.gamesWon());
-        config.set(uuid + ".skipsBought", s.skipsBought());
-        config.set(uuid + ".blocksSteppedOn", s.blocksSteppedOn());
-        try { config.save(statsFile); }
-        catch (IOException e) { BlockShuffle.logger.severe("Could not save stats.yml"); }
+    /**
+     * Writer thread only: visits one page, then queues reading the next.
+     */
+    private void visitPage(Map<UUID, PlayerStats> page, BiConsumer<UUID, PlayerStats> action, CompletableFuture<Void> done) {
+        try {
+            UUID last = null;
+            for (Map.Entry<UUID, PlayerStats> entry : page.entrySet()) {
+                PlayerStats queued = writer.peek(entry.getKey());
+                action.accept(entry.getKey(), queued != null ? queued : entry.getValue());
+                last = entry.getKey();
+            }
+            if (page.size() < PASS_SLICE_SIZE) {
+                done.complete(null);
+                return;
+            }
+
+            UUID after = last;
+            writer.execute(() -> {
+                try {
+                    visitPage(store.loadPage(after, PASS_SLICE_SIZE), action, done);
+                } catch (RuntimeException e) {
+                    done.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Writer shut down part way through
+            done.completeExceptionally(e);
+        } catch (RuntimeException e) {
+            done.completeExceptionally(e);
+        }
     }
 
-    public void saveAll() {
-        cache.keySet().forEach(this::save);
+    /**
+     * @return The leaderboards, or null while they are still being built at startup
+     */
+    public Leaderboards getLeaderboards() {
+        return leaderboards;
+    }
+
+    public int cachedCount() {
+        return cache.size();
+    }
+
+    /**
+     * Stops the writer, saves anything still pending and closes the store. Call from onDisable.
+     */
+    public void shutdown() {
+        writer.shutdown();
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    private void loadAsync(List<UUID> uuids, Consumer<Map<UUID, PlayerStats>> onLoaded) {
+        writer.supply(() -> {
+            Map<UUID, PlayerStats> loaded = new HashMap<>(uuids.size());
+            for (UUID uuid : uuids) {
+                loaded.put(uuid, load(uuid));
+            }
+            return loaded;
+        }).whenComplete((loaded, error) -> {
+            if (!plugin.isEnabled()) return;
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                if (error != null) {
+                    // Whatever was waiting on these players is dropped rather than applied to blank stats
+                    BlockShuffle.logger.severe("[Stats] Could not load stats for " + uuids.size() + " players: " + error.getMessage());
+                    return;
+                }
+                // Anything cached meanwhile (an earlier load, then a new stat) is newer than what was read
+                Map<UUID, PlayerStats> current = new HashMap<>(loaded.size());
+                for (Map.Entry<UUID, PlayerStats> entry : loaded.entrySet()) {
+                    current.put(entry.getKey(), cache.computeIfAbsent(entry.getKey(), id -> entry.getValue()));
+                }
+                onLoaded.accept(current);
+            });
+        });
+    }
+
+    /**
+     * Runs on the writer thread. A value still queued for writing is newer than what the store holds.
+     */
+    private PlayerStats load(UUID uuid) {
+        PlayerStats queued = writer.peek(uuid);
+        if (queued != null) return queued;
+        PlayerStats stored = store.load(uuid);
+        return stored != null ? stored : new PlayerStats();
+    }
+
+    private void update(UUID uuid, PlayerStats updated) {
+        remember(uuid, updated);
+        writer.submit(uuid, updated);
+    }
+
+    private void remember(UUID uuid, PlayerStats updated) {
+        cache.put(uuid, updated);
+        if (leaderboards != null) {
+            leaderboards.update(uuid, updated);
+        } else {
+            changedDuringBuild.put(uuid, updated);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,40 @@
+package org.lukeeirl.blockShuffle.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Where player stats are persisted. Apart from the one-shot stats.yml import at startup, stores
+ * are only used from the stats writer thread, so implementations don't need to be thread-safe.
+ * Failures are reported as unchecked exceptions so {@link CoalescingWriter} can retry the batch.
+ */
+public interface StatsStore {
+
+    /**
+     * Reads every player at once. Only used to import stats.yml into another backend once;
+     * everything else goes through {@link #load} or {@link #loadPage}.
+     */
+    Map<UUID, PlayerStats> loadAll();
+
+    /**
+     * Reads the next page of a full pass in the store's own UUID order, so a pass never holds
+     * more than one page in memory.
+     *
+     * @param after Last UUID of the previous page, or null for the first page
+     * @return Up to limit players after that one, in order; fewer than limit means the pass is done
+     */
+    LinkedHashMap<UUID, PlayerStats> loadPage(UUID after, int limit);
+
+    /**
+     * @return The player's stats, or null if the store has none
+     */
+    PlayerStats load(UUID uuid);
+
+    /**
+     * Inserts or replaces the full stats of every player in the batch.
+     */
+    void saveBatch(Map<UUID, PlayerStats> batch);
+
+    void close();
+}
@@ -0,0 +1,93 @@
+package org.lukeeirl.blockShuffle.util;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The original stats.yml format. Every batch rewrites the whole file, so this suits small servers.
+ */
+public class YamlStatsStore implements StatsStore {
+    private final File statsFile;
+    private final YamlConfiguration config;
+
+    public YamlStatsStore(File statsFile) {
+        this.statsFile = statsFile;
+        this.config = YamlConfiguration.loadConfiguration(statsFile);
+    }
+
+    @Override
+    public Map<UUID, PlayerStats> loadAll() {
+        Map<UUID, PlayerStats> all = new HashMap<>();
+        for (String key : config.getKeys(false)) {
+            PlayerStats stats = read(config.getConfigurationSection(key));
+            if (stats != null) {
+                all.put(UUID.fromString(key), stats);
+            }
+        }
+        return all;
+    }
+
+    /**
+     * Sorts the keys for every page; fine at the sizes this store is meant for.
+     */
+    @Override
+    public LinkedHashMap<UUID, PlayerStats> loadPage(UUID after, int limit) {
+        String from = after == null ? "" : after.toString();
+        LinkedHashMap<UUID, PlayerStats> page = new LinkedHashMap<>();
+        config.getKeys(false).stream()
+                .filter(key -> key.compareTo(from) > 0 && config.isConfigurationSection(key))
+                .sorted()
+                .limit(limit)
+                .forEach(key -> page.put(UUID.fromString(key), read(config.getConfigurationSection(key))));
+        return page;
+    }
+
+    @Override
+    public PlayerStats load(UUID uuid) {
+        return read(config.getConfigurationSection(uuid.toString()));
+    }
+
+    @Override
+    public void saveBatch(Map<UUID, PlayerStats> batch) {
+        for (Map.Entry<UUID, PlayerStats> entry : batch.entrySet()) {
+            UUID uuid = entry.getKey();
+            PlayerStats s = entry.getValue();
+            config.set(uuid + ".gamesPlayed", s.gamesPlayed());
+            config.set(uuid + ".gamesWon",    s.gamesWon());
+            config.set(uuid + ".skipsBought", s.skipsBought());
+            config.set(uuid + ".blocksSteppedOn", s.blocksSteppedOn());
+            config.set(uuid + ".rating", s.rating());
+            config.set(uuid + ".ratingDeviation", s.ratingDeviation());
+            config.set(uuid + ".ratingVolatility", s.ratingVolatility());
+        }
+
+        try { config.save(statsFile); }
+        catch (IOException e) { throw new UncheckedIOException("Could not save " + statsFile.getName(), e); }
+    }
+
+    @Override
+    public void close() {
+        // Nothing held open; every batch is already on disk
+    }
+
+    private static PlayerStats read(ConfigurationSection sec) {
+        if (sec == null) return null;
+        return new PlayerStats(
+                sec.getInt("gamesPlayed", 0),
+                sec.getInt("gamesWon", 0),
+                sec.getInt("skipsBought", 0),
+                sec.getInt("blocksSteppedOn", 0),
+                sec.getDouble("rating", Glicko2.DEFAULT_RATING),
+                sec.getDouble("ratingDeviation", Glicko2.DEFAULT_DEVIATION),
+                sec.getDouble("ratingVolatility", Glicko2.DEFAULT_VOLATILITY)
+        );
+    }
+}